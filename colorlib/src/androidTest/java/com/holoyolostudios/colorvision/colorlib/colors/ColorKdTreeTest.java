@@ -0,0 +1,112 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks the k-d tree against a linear scan over random palettes and random queries
+ */
+public class ColorKdTreeTest extends TestCase {
+
+    private static final int[] SIZES = {1, 2, 7, 345, 1000, 5000};
+    private static final int QUERIES = 50000;
+
+    private Random mRandom = new Random(23);
+
+    public void testNearestMatchesScan() {
+        for (int size : SIZES) {
+            int[][] palette = createPalette(size, 256);
+            ColorKdTree tree = new ColorKdTree(palette[0], palette[1], palette[2]);
+            for (int i = 0; i < QUERIES; i++) {
+                int r = mRandom.nextInt(256);
+                int g = mRandom.nextInt(256);
+                int b = mRandom.nextInt(256);
+                long expected = scan(palette, r, g, b, -1);
+                assertEquals("Size " + size + " query " + r + "," + g + "," + b, expected,
+                        tree.nearestPacked(r, g, b));
+                assertEquals((int) expected, tree.nearest(r, g, b));
+            }
+        }
+    }
+
+    public void testNearestWithDuplicatesAndTies() {
+
+        // A coarse grid makes equal distances and repeated colors common
+        int[][] palette = createPalette(2000, 8);
+        for (int i = 0; i < palette[0].length; i++) {
+            palette[0][i] *= 32;
+            palette[1][i] *= 32;
+            palette[2][i] *= 32;
+        }
+        ColorKdTree tree = new ColorKdTree(palette[0], palette[1], palette[2]);
+        for (int i = 0; i < QUERIES; i++) {
+            int r = mRandom.nextInt(256);
+            int g = mRandom.nextInt(256);
+            int b = mRandom.nextInt(256);
+            assertEquals(scan(palette, r, g, b, -1), tree.nearestPacked(r, g, b));
+        }
+    }
+
+    public void testSecondNearestMatchesScan() {
+        for (int size : SIZES) {
+            int[][] palette = createPalette(size, 256);
+            ColorKdTree tree = new ColorKdTree(palette[0], palette[1], palette[2]);
+            for (int i = 0; i < QUERIES / 10; i++) {
+                int r = mRandom.nextInt(256);
+                int g = mRandom.nextInt(256);
+                int b = mRandom.nextInt(256);
+                int index = tree.nearest(r, g, b);
+                int exclude = (palette[0][index] << 16) | (palette[1][index] << 8) | palette[2][index];
+                assertEquals(scan(palette, r, g, b, exclude), tree.secondNearestPacked(r, g, b, index));
+            }
+        }
+    }
+
+    private int[][] createPalette(int size, int levels) {
+        int[][] palette = new int[3][size];
+        for (int i = 0; i < size; i++) {
+            palette[0][i] = mRandom.nextInt(levels);
+            palette[1][i] = mRandom.nextInt(levels);
+            palette[2][i] = mRandom.nextInt(levels);
+        }
+        return palette;
+    }
+
+    /**
+     * Linear scan with the tree's tie break, the lowest index wins
+     */
+    private static long scan(int[][] palette, int r, int g, int b, int exclude) {
+        long best = -1L;
+        for (int i = 0; i < palette[0].length; i++) {
+            if (((palette[0][i] << 16) | (palette[1][i] << 8) | palette[2][i]) == exclude) {
+                continue;
+            }
+            int dr = r - palette[0][i];
+            int dg = g - palette[1][i];
+            int db = b - palette[2][i];
+            long candidate = ((long) (dr * dr + dg * dg + db * db) << 32) | i;
+            if (best < 0 || candidate < best) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+}
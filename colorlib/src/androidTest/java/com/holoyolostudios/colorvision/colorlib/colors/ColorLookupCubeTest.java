@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Checks every RGB value the lookup cube answers against the k-d tree, for palettes other than
+ * the built in one
+ */
+public class ColorLookupCubeTest extends TestCase {
+
+    private Random mRandom = new Random(41);
+
+    public void testGridPalette() throws InterruptedException {
+
+        // Evenly spaced colors put cell corners exactly on the bisecting planes
+        int[][] palette = new int[3][16 * 16 * 16];
+        int i = 0;
+        for (int r = 0; r < 256; r += 16) {
+            for (int g = 0; g < 256; g += 16) {
+                for (int b = 0; b < 256; b += 16, i++) {
+                    palette[0][i] = r;
+                    palette[1][i] = g;
+                    palette[2][i] = b;
+                }
+            }
+        }
+        assertCubeMatchesTree(palette);
+    }
+
+    public void testTieOnCellCorner() throws InterruptedException {
+
+        // The far corner (8,40,8) of the cell centered on (10,42,10) is equally far from both
+        // colors, and the runner up is exactly the margin further from the center than the winner
+        int[][] palette = {{0x00, 0x10}, {0x20, 0x30}, {0x00, 0x10}};
+        assertCubeMatchesTree(palette);
+    }
+
+    public void testRandomPalettes() throws InterruptedException {
+        assertCubeMatchesTree(createPalette(2, 256));
+        assertCubeMatchesTree(createPalette(50, 256));
+        assertCubeMatchesTree(createPalette(1000, 256));
+    }
+
+    public void testCoarsePaletteWithDuplicates() throws InterruptedException {
+        int[][] palette = createPalette(300, 8);
+        for (int i = 0; i < palette[0].length; i++) {
+            palette[0][i] *= 32;
+            palette[1][i] *= 32;
+            palette[2][i] *= 32;
+        }
+        assertCubeMatchesTree(palette);
+    }
+
+    public void testSavedCubeMatchesBuiltCube() throws InterruptedException {
+        ColorKdTree tree = createTree(createPalette(500, 256));
+        ColorLookupCube cube = new ColorLookupCube(tree);
+        ByteBuffer data = ByteBuffer.allocate(ColorLookupCube.getByteSize());
+        cube.write(data);
+        data.flip();
+        ColorLookupCube restored = new ColorLookupCube(data, tree.size());
+        assertEquals(cube.getAmbiguousCount(), restored.getAmbiguousCount());
+        for (int rgb = 0; rgb < 0x1000000; rgb += 0x010101) {
+            int r = rgb >> 16;
+            int g = (rgb >> 8) & 0xFF;
+            int b = rgb & 0xFF;
+            assertEquals(cube.lookup(r, g, b), restored.lookup(r, g, b));
+        }
+    }
+
+    private void assertCubeMatchesTree(int[][] palette) throws InterruptedException {
+        ColorKdTree tree = createTree(palette);
+        ColorLookupCube cube = new ColorLookupCube(tree);
+        for (int r = 0; r < 256; r++) {
+            for (int g = 0; g < 256; g++) {
+                for (int b = 0; b < 256; b++) {
+                    int index = cube.lookup(r, g, b);
+                    if (index != ColorLookupCube.AMBIGUOUS && index != tree.nearest(r, g, b)) {
+                        fail(String.format("#%02X%02X%02X gave %d (#%06X) instead of %d (#%06X)", r, g, b,
+                                index, tree.getColor(index), tree.nearest(r, g, b),
+                                tree.getColor(tree.nearest(r, g, b))));
+                    }
+                }
+            }
+        }
+    }
+
+    private ColorKdTree createTree(int[][] palette) {
+        return new ColorKdTree(palette[0], palette[1], palette[2]);
+    }
+
+    private int[][] createPalette(int size, int levels) {
+        int[][] palette = new int[3][size];
+        for (int i = 0; i < size; i++) {
+            palette[0][i] = mRandom.nextInt(levels);
+            palette[1][i] = mRandom.nextInt(levels);
+            palette[2][i] = mRandom.nextInt(levels);
+        }
+        return palette;
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hammers the cache from several threads while the palette is swapped underneath, and checks that
+ * every answer comes whole from one palette
+ */
+public class ColorNameCacheStressTest extends TestCase {
+
+    private static final int READERS = 4;
+    private static final int QUERIES = 512;
+    private static final int SWAPS = 200;
+    private static final int PALETTE_SIZE = 300;
+
+    private ColorPalette mPaletteA = null;
+    private ColorPalette mPaletteB = null;
+    private int[] mQueries = new int[QUERIES];
+    private String[] mExpectedA = new String[QUERIES];
+    private String[] mExpectedB = new String[QUERIES];
+    private ColorNameCache mColorNameCache = null;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Random random = new Random(17);
+        mPaletteA = createPalette("A", random);
+        mPaletteB = createPalette("B", random);
+        for (int i = 0; i < QUERIES; i++) {
+            int rgb = random.nextInt(0x1000000);
+            mQueries[i] = rgb;
+            mExpectedA[i] = mPaletteA.getDisplayName(nearest(mPaletteA, rgb));
+            mExpectedB[i] = mPaletteB.getDisplayName(nearest(mPaletteB, rgb));
+        }
+        mColorNameCache = ColorNameCache.createInstance(ColorNameCache.LOOKUP_QUANTIZED);
+        mColorNameCache.setPalette(mPaletteA);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mColorNameCache.destroy();
+        super.tearDown();
+    }
+
+    public void testPaletteSwapsNeverMix() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch done = new CountDownLatch(READERS);
+        for (int t = 0; t < READERS; t++) {
+            final int offset = t * 31;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ColorNameSession session = mColorNameCache.createSession();
+                    int i = offset;
+                    try {
+                        while (running.get() && failure.get() == null) {
+                            int q = i++ % QUERIES;
+                            int rgb = mQueries[q];
+                            check(q, mColorNameCache.getColorName(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF));
+                            check(q, session.getColorName(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF));
+                        }
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e.toString());
+                    } finally {
+                        done.countDown();
+                    }
+                }
+
+                private void check(int q, String name) {
+                    if (!mExpectedA[q].equals(name) && !mExpectedB[q].equals(name)) {
+                        failure.compareAndSet(null, "Query " + Integer.toHexString(mQueries[q]) + " named "
+                                + name + ", expected " + mExpectedA[q] + " or " + mExpectedB[q]);
+                    }
+                }
+            }).start();
+        }
+
+        for (int i = 0; i < SWAPS && failure.get() == null; i++) {
+            mColorNameCache.setPalette((i % 2 == 0) ? mPaletteB : mPaletteA);
+            Thread.sleep(1);
+        }
+        running.set(false);
+        assertTrue("Readers did not finish", done.await(30, TimeUnit.SECONDS));
+        assertNull(failure.get(), failure.get());
+    }
+
+    public void testDestroyWhileReading() throws Exception {
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch started = new CountDownLatch(READERS);
+        final CountDownLatch done = new CountDownLatch(READERS);
+        for (int t = 0; t < READERS; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        for (int i = 0; ; i++) {
+                            int q = i % QUERIES;
+                            int rgb = mQueries[q];
+                            String name = mColorNameCache.getColorName(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF);
+                            if (!mExpectedA[q].equals(name)) {
+                                failure.compareAndSet(null, "Query " + Integer.toHexString(rgb) + " named " + name);
+                                return;
+                            }
+                        }
+                    } catch (IllegalStateException e) {
+
+                        // Expected once the cache is destroyed
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e.toString());
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        started.await();
+        Thread.sleep(20);
+        mColorNameCache.destroy();
+        assertTrue("Readers did not stop", done.await(30, TimeUnit.SECONDS));
+        assertNull(failure.get(), failure.get());
+        assertFalse(mColorNameCache.isInitialized());
+    }
+
+    public void testConcurrentCreateReturnsInitializedInstance() throws Exception {
+        mColorNameCache.destroy();
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(READERS);
+        for (int t = 0; t < READERS; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        ColorNameCache cache = ColorNameCache.createInstance(ColorNameCache.LOOKUP_INDEXED);
+                        if (!cache.isInitialized()) {
+                            failure.compareAndSet(null, "createInstance returned an uninitialized instance");
+                        }
+                    } catch (InterruptedException e) {
+                        failure.compareAndSet(null, e.toString());
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        assertTrue("Creators did not finish", done.await(30, TimeUnit.SECONDS));
+        mColorNameCache = ColorNameCache.getInstance();
+        assertNull(failure.get(), failure.get());
+    }
+
+    private static ColorPalette createPalette(String prefix, Random random) {
+        ColorPalette.Builder builder = new ColorPalette.Builder();
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            builder.add(prefix, prefix + i, random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        }
+        return builder.build();
+    }
+
+    private static int nearest(ColorPalette palette, int rgb) {
+        int r = rgb >> 16;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < palette.size(); i++) {
+            int dr = r - palette.getRed(i);
+            int dg = g - palette.getGreen(i);
+            int db = b - palette.getBlue(i);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import com.holoyolostudios.colorvision.colorlib.util.AndroidLogSink;
+import com.holoyolostudios.colorvision.colorlib.util.LogSink;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the quantized cache with a cache directory, the way the apps do, and checks that the
+ * second start maps the palette and the lookup table instead of building them
+ */
+public class ColorNameCacheTableTest extends TestCase {
+
+    private static final long TIMEOUT_MS = 30000;
+    private static final int[] QUERIES = {0x000000, 0xFFFFFF, 0x808080, 0xD2042D, 0x103010, 0x2E8B57, 0x4169E1};
+
+    private File mDirectory = null;
+    private final List<String> mMessages = Collections.synchronizedList(new ArrayList<String>());
+    private final LogSink mLogSink = new LogSink() {
+        @Override
+        public void debug(String tag, String message) {
+            mMessages.add(message);
+        }
+
+        @Override
+        public void warning(String tag, String message, Throwable e) {
+            mMessages.add("Warning: " + message);
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDirectory = new File(System.getProperty("java.io.tmpdir"), "ColorNameCacheTableTest" + System.nanoTime());
+        ColorNameCache.setLogSink(mLogSink);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ColorNameCache.setLogSink(AndroidLogSink.createIfAvailable());
+        delete(mDirectory);
+        super.tearDown();
+    }
+
+    public void testTablesAreSavedAndReused() throws Exception {
+        String[] built = nameQueries();
+        assertTrue(mMessages.toString(), contains("Building the default palette"));
+        assertFalse(mMessages.toString(), contains("Warning"));
+
+        mMessages.clear();
+        String[] mapped = nameQueries();
+        assertFalse(mMessages.toString(), contains("Building the default palette"));
+        assertFalse(mMessages.toString(), contains("Warning"));
+        for (int i = 0; i < QUERIES.length; i++) {
+            assertNotNull(built[i]);
+            assertEquals(built[i], mapped[i]);
+        }
+    }
+
+    /**
+     * Start a cache, wait for its lookup table and name the queries with it
+     *
+     * @return {@link String} array of names
+     * @throws Exception
+     */
+    private String[] nameQueries() throws Exception {
+        ColorNameCache cache = ColorNameCache.createInstanceAsync(ColorNameCache.LOOKUP_QUANTIZED, mDirectory);
+        try {
+            cache.getInitFuture().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (!cache.isLookupCubeReady()) {
+                assertTrue("Lookup table not ready in time", System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+            String[] names = new String[QUERIES.length];
+            for (int i = 0; i < QUERIES.length; i++) {
+                int rgb = QUERIES[i];
+                names[i] = cache.getColorName(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF);
+            }
+            return names;
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    private boolean contains(String prefix) {
+        synchronized (mMessages) {
+            for (String message : mMessages) {
+                if (message.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+/**
+ * Lookup time against palette size, from the built in palette up to 50k entries, for the tree
+ * search and for a linear scan. Timings are only reported; on the largest palette every timed
+ * tree answer is checked against the scan.
+ */
+public class ColorNameLookupBenchmarkTest extends TestCase {
+
+    private static final String TAG = "ColorNameLookupBenchmarkTest";
+    private static final int[] SIZES = {345, 1000, 5000, 10000, 30000, 50000};
+    private static final int TREE_QUERIES = 20000;
+    private static final int SCAN_QUERIES = 500;
+
+    private Random mRandom = new Random(99);
+
+    // Keeps the timed loops from being optimised away
+    private int mSink = 0;
+
+    public void testLookupTimeAgainstPaletteSize() throws IOException {
+        int[] queries = new int[TREE_QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = mRandom.nextInt(0x1000000);
+        }
+
+        int[] found = new int[queries.length];
+        StringBuilder report = new StringBuilder("entries, tree ns/lookup, scan ns/lookup\n");
+        for (int size : SIZES) {
+            ColorPalette palette = ColorPaletteLoader.load(new StringReader(createCsv(size)));
+            assertEquals(size, palette.size());
+            ColorKdTree tree = palette.createTree();
+
+            // Warm up, and check the tree against the scan while at it
+            for (int i = 0; i < SCAN_QUERIES; i++) {
+                int rgb = queries[i];
+                assertEquals(scan(palette, rgb), tree.nearest(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF));
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < queries.length; i++) {
+                int rgb = queries[i];
+                found[i] = tree.nearest(rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF);
+            }
+            long treeNanos = (System.nanoTime() - start) / queries.length;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_QUERIES; i++) {
+                mSink += scan(palette, queries[i]);
+            }
+            long scanNanos = (System.nanoTime() - start) / SCAN_QUERIES;
+
+            report.append(size).append(", ").append(treeNanos).append(", ").append(scanNanos).append('\n');
+
+            // The timed answers must be right too, where the tree prunes the most
+            if (size == SIZES[SIZES.length - 1]) {
+                for (int i = 0; i < queries.length; i++) {
+                    assertEquals("Query " + Integer.toHexString(queries[i]), scan(palette, queries[i]), found[i]);
+                }
+            }
+        }
+        Log.i(TAG, report.toString());
+    }
+
+    public void testLoaderFormats() throws IOException {
+        ColorPalette palette = ColorPaletteLoader.load(new StringReader(
+                "; comment\n\nred, cherry, #D2042D\n blue ,navy,0,0,128\nred,brick,#aa4a44\n"));
+        assertEquals(3, palette.size());
+        assertEquals(2, palette.getShadeCount());
+        assertEquals("cherry (red)", palette.getDisplayName(0));
+        assertEquals(0xD2042D, palette.getColor(0));
+        assertEquals("navy (blue)", palette.getDisplayName(1));
+        assertEquals(0x000080, palette.getColor(1));
+        assertEquals(0xAA4A44, palette.getColor(2));
+
+        try {
+            ColorPaletteLoader.load(new StringReader("red,cherry,#D2042D\nred,bad,300,0,0\n"));
+            fail("Out of range value accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Line 2"));
+        }
+    }
+
+    private String createCsv(int size) {
+        StringBuilder csv = new StringBuilder(size * 32);
+        for (int i = 0; i < size; i++) {
+            csv.append("shade").append(i % 16).append(",color ").append(i).append(',')
+                    .append(mRandom.nextInt(256)).append(',')
+                    .append(mRandom.nextInt(256)).append(',')
+                    .append(mRandom.nextInt(256)).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static int scan(ColorPalette palette, int rgb) {
+        int r = rgb >> 16;
+        int g = (rgb >> 8) & 0xFF;
+        int b = rgb & 0xFF;
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < palette.size(); i++) {
+            int dr = r - palette.getRed(i);
+            int dg = g - palette.getGreen(i);
+            int db = b - palette.getBlue(i);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+}
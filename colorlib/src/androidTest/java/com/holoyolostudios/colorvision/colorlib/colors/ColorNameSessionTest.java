@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks that a session answers a jittered stream of queries exactly like a full search, across a
+ * palette change
+ */
+public class ColorNameSessionTest extends TestCase {
+
+    private static final int QUERIES = 1000000;
+    private static final int JITTER = 2;
+    private static final int JUMP_ODDS = 64;
+    private static final int PALETTE_SIZE = 1000;
+
+    private Random mRandom = new Random(31);
+    private ColorNameCache mColorNameCache = null;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mColorNameCache = ColorNameCache.createInstance();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mColorNameCache.destroy();
+        super.tearDown();
+    }
+
+    public void testJitteredQueriesMatchExactLookup() {
+        ColorNameSession session = mColorNameCache.createSession();
+        assertStream(session, mColorNameCache.getPalette());
+
+        ColorPalette.Builder builder = new ColorPalette.Builder();
+        for (int i = 0; i < PALETTE_SIZE; i++) {
+            builder.add("shade", "color " + i, mRandom.nextInt(256), mRandom.nextInt(256), mRandom.nextInt(256));
+        }
+        ColorPalette palette = builder.build();
+        mColorNameCache.setPalette(palette);
+        assertStream(session, palette);
+
+        // A stream that barely moves should mostly be answered without a search
+        assertTrue("Only " + session.getReuseCount() + " of " + (2 * QUERIES) + " reused",
+                session.getReuseCount() > QUERIES / 2);
+    }
+
+    public void testDestroyedCacheAnswersNull() {
+        ColorNameSession session = mColorNameCache.createSession();
+        assertNotNull(session.getColorName(10, 200, 30));
+        mColorNameCache.destroy();
+        assertEquals(-1, session.getColorIndex(10, 200, 30));
+        assertNull(session.getColorName(10, 200, 30));
+        assertNull(session.getColorName(90, 20, 130));
+    }
+
+    private void assertStream(ColorNameSession session, ColorPalette palette) {
+        int r = mRandom.nextInt(256);
+        int g = mRandom.nextInt(256);
+        int b = mRandom.nextInt(256);
+        for (int i = 0; i < QUERIES; i++) {
+            if (mRandom.nextInt(JUMP_ODDS) == 0) {
+                r = mRandom.nextInt(256);
+                g = mRandom.nextInt(256);
+                b = mRandom.nextInt(256);
+            }
+            int qr = clamp(r + mRandom.nextInt(2 * JITTER + 1) - JITTER);
+            int qg = clamp(g + mRandom.nextInt(2 * JITTER + 1) - JITTER);
+            int qb = clamp(b + mRandom.nextInt(2 * JITTER + 1) - JITTER);
+            int expected = scan(palette, qr, qg, qb);
+            int actual = session.getColorIndex(qr, qg, qb);
+            if (expected != actual) {
+                fail("Query " + qr + "," + qg + "," + qb + " gave " + actual + ", expected " + expected);
+            }
+        }
+    }
+
+    private static int clamp(int value) {
+        return (value < 0) ? 0 : ((value > 255) ? 255 : value);
+    }
+
+    /**
+     * Linear scan, the lowest index wins a tie like in the tree
+     */
+    private static int scan(ColorPalette palette, int r, int g, int b) {
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < palette.size(); i++) {
+            int dr = r - palette.getRed(i);
+            int dg = g - palette.getGreen(i);
+            int db = b - palette.getBlue(i);
+            int distance = dr * dr + dg * dg + db * db;
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Round trips palettes through the binary palette file format
+ */
+public class ColorPaletteFileTest extends TestCase {
+
+    private static final int REVISION = 7;
+
+    private File mFile = null;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mFile = File.createTempFile("palette", ".cvpl");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mFile.delete();
+        super.tearDown();
+    }
+
+    public void testDefaultPaletteRoundTrip() throws IOException {
+        ColorPalette expected = ColorNameCache.createDefaultPalette();
+        ColorPaletteFile.write(expected, REVISION, mFile);
+        ColorPalette actual = ColorPaletteFile.map(mFile, REVISION);
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getShadeCount(), actual.getShadeCount());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getColor(i), actual.getColor(i));
+            assertEquals(expected.getShadeId(i), actual.getShadeId(i));
+            assertEquals(expected.getDisplayName(i), actual.getDisplayName(i));
+        }
+    }
+
+    public void testNonAsciiNames() throws IOException {
+        ColorPalette expected = new ColorPalette.Builder()
+                .add("rot", "Rötlich", 200, 40, 40)
+                .add("青", "藍色", 20, 40, 120)
+                .add("rot", "", 255, 0, 0)
+                .build();
+        ColorPalette actual = ColorPaletteFile.read(ByteBuffer.wrap(toBytes(expected)),
+                ColorPaletteFile.ANY_REVISION);
+        assertEquals("Rötlich (rot)", actual.getDisplayName(0));
+        assertEquals("藍色 (青)", actual.getDisplayName(1));
+        assertEquals(" (rot)", actual.getDisplayName(2));
+    }
+
+    public void testRejectsBadFiles() throws IOException {
+        byte[] bytes = toBytes(ColorNameCache.createDefaultPalette());
+        assertRejected(bytes, REVISION + 1);
+
+        byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        assertRejected(truncated, REVISION);
+
+        byte[] magic = bytes.clone();
+        magic[0] = 'X';
+        assertRejected(magic, REVISION);
+    }
+
+    private static byte[] toBytes(ColorPalette palette) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColorPaletteFile.write(palette, REVISION, out);
+        return out.toByteArray();
+    }
+
+    private static void assertRejected(byte[] bytes, int revision) {
+        try {
+            ColorPaletteFile.read(ByteBuffer.wrap(bytes), revision);
+            fail("Accepted a bad palette file");
+        } catch (IOException e) {
+
+            // Expected
+        }
+    }
+
+}
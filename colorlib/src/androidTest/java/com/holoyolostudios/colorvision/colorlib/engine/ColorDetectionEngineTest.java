@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.engine;
+
+import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
+import com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool;
+import com.holoyolostudios.colorvision.colorlib.util.YuvLayout;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the detection engine with a synthetic frame source, without a camera or an activity
+ */
+public class ColorDetectionEngineTest extends TestCase {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 360;
+    private static final int FRAMES = 300;
+    private static final long TIMEOUT_MS = 10000;
+
+    private ColorNameCache mColorNameCache = null;
+    private volatile int mLastColor = 0;
+    private volatile String mLastName = null;
+    private final ResultSink mSink = new ResultSink() {
+        @Override
+        public void onResult(int color, String name) {
+            mLastColor = color;
+            mLastName = name;
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mColorNameCache = ColorNameCache.createInstance(ColorNameCache.LOOKUP_INDEXED);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mColorNameCache.destroy();
+        super.tearDown();
+    }
+
+    public void testSyntheticFramesAreAnalysedAndNamed() throws Exception {
+        ColorDetectionEngine engine = new ColorDetectionEngine(mColorNameCache, mSink);
+        engine.setSampleSize(32, 32);
+
+        // Y 128 with neutral chroma decodes to mid gray
+        SyntheticFrameSource source = new SyntheticFrameSource(FRAMES, 128, 128, 128);
+        engine.start(source);
+        assertTrue(engine.isRunning());
+        source.awaitDelivered();
+        awaitAnalysed(engine, FRAMES);
+        engine.stop();
+        assertFalse(engine.isRunning());
+
+        assertEquals(0xFF808080, mLastColor);
+        assertEquals(mColorNameCache.getColorName(0x80, 0x80, 0x80), mLastName);
+        assertEquals(FRAMES, engine.getDeliveredCount());
+        assertEquals(FRAMES, engine.getAnalyzedCount() + engine.getSupersededCount() + engine.getDroppedCount());
+        assertTrue(source.isClosed());
+    }
+
+    public void testRestartReusesBuffers() throws Exception {
+        ColorDetectionEngine engine = new ColorDetectionEngine(null, mSink);
+
+        // Stopping an idle engine is a no-op
+        engine.stop();
+
+        for (int run = 0; run < 3; run++) {
+            SyntheticFrameSource source = new SyntheticFrameSource(FRAMES / 3, 81, 90, 240);
+            engine.start(source);
+            source.awaitDelivered();
+            awaitAnalysed(engine, (run + 1) * (FRAMES / 3));
+            engine.stop();
+        }
+        assertEquals(PreviewBufferPool.DEFAULT_BUFFER_COUNT, engine.getAllocationCount());
+        assertEquals(3 * (FRAMES / 3), engine.getDeliveredCount());
+
+        // Without a cache results come without a name; Y 81, U 90, V 240 decodes to a red
+        assertNull(mLastName);
+        assertTrue(((mLastColor >> 16) & 0xFF) > 0xD0);
+        assertTrue((mLastColor & 0xFF) < 0x30);
+    }
+
+    public void testStopWhileFramesFlow() throws Exception {
+        ColorDetectionEngine engine = new ColorDetectionEngine(mColorNameCache, mSink);
+        SyntheticFrameSource source = new SyntheticFrameSource(Integer.MAX_VALUE, 16, 128, 128);
+        engine.start(source);
+        while (engine.getDeliveredCount() < 10) {
+            Thread.sleep(1);
+        }
+        engine.stop();
+        assertTrue(source.isClosed());
+
+        // Every delivered frame is accounted for, none is left with the worker
+        assertEquals(engine.getDeliveredCount(),
+                engine.getAnalyzedCount() + engine.getSupersededCount() + engine.getDroppedCount());
+    }
+
+    public void testCacheDestroyedWhileRunning() throws Exception {
+        ColorDetectionEngine engine = new ColorDetectionEngine(mColorNameCache, mSink);
+        SyntheticFrameSource source = new SyntheticFrameSource(Integer.MAX_VALUE, 128, 128, 128);
+        engine.start(source);
+        awaitName(true);
+
+        // The worker keeps analysing, now without names
+        mColorNameCache.destroy();
+        awaitName(false);
+        long analysed = engine.getAnalyzedCount() + engine.getSupersededCount();
+        awaitAnalysed(engine, analysed + 10);
+        assertNull(mLastName);
+        assertEquals(0xFF808080, mLastColor);
+        engine.stop();
+        assertEquals(engine.getDeliveredCount(),
+                engine.getAnalyzedCount() + engine.getSupersededCount() + engine.getDroppedCount());
+    }
+
+    public void testFailedStartClosesSource() throws Exception {
+        ColorDetectionEngine engine = new ColorDetectionEngine(mColorNameCache, mSink);
+        SyntheticFrameSource source = new SyntheticFrameSource(FRAMES, 128, 128, 128) {
+            @Override
+            public void start() {
+                throw new IllegalStateException("Preview could not start");
+            }
+        };
+        try {
+            engine.start(source);
+            fail("The failed start was not reported");
+        } catch (IllegalStateException e) {
+
+            // Expected
+        }
+        assertFalse(engine.isRunning());
+        assertTrue(source.isClosed());
+    }
+
+    /**
+     * Wait until the engine has finished with a number of frames
+     *
+     * @param engine {@link com.holoyolostudios.colorvision.colorlib.engine.ColorDetectionEngine}
+     * @param frames {@link Long}
+     * @throws InterruptedException
+     */
+    private static void awaitAnalysed(ColorDetectionEngine engine, long frames) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (engine.getAnalyzedCount() + engine.getSupersededCount() < frames) {
+            assertTrue("Frames not analysed in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Wait until the last result delivered to the sink has, or lacks, a name
+     *
+     * @param named {@link Boolean}
+     * @throws InterruptedException
+     */
+    private void awaitName(boolean named) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while ((mLastName != null) != named) {
+            assertTrue("Name not delivered in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Frame source that fills every buffer with one NV21 color on its own thread, the way the
+     * camera does
+     */
+    private static class SyntheticFrameSource implements FrameSource {
+
+        private final YuvLayout mLayout = YuvLayout.nv21(WIDTH, HEIGHT, WIDTH);
+        private final LinkedBlockingQueue<byte[]> mBuffers = new LinkedBlockingQueue<byte[]>();
+        private final int mFrames;
+        private final byte mY;
+        private final byte mU;
+        private final byte mV;
+        private Listener mListener = null;
+        private Thread mThread = null;
+        private volatile boolean mStopped = false;
+        private volatile boolean mClosed = false;
+
+        SyntheticFrameSource(int frames, int y, int u, int v) {
+            mFrames = frames;
+            mY = (byte) y;
+            mU = (byte) u;
+            mV = (byte) v;
+        }
+
+        @Override
+        public void open(Listener listener) {
+            mListener = listener;
+        }
+
+        @Override
+        public YuvLayout getLayout() {
+            return mLayout;
+        }
+
+        @Override
+        public void addCallbackBuffer(byte[] buffer) {
+            mBuffers.add(buffer);
+        }
+
+        @Override
+        public void start() {
+            mThread = new Thread("SyntheticFrameSource") {
+                @Override
+                public void run() {
+                    int delivered = 0;
+                    while (delivered < mFrames && !mStopped) {
+                        byte[] frame;
+                        try {
+                            frame = mBuffers.poll(10, TimeUnit.MILLISECONDS);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        if (frame == null) {
+                            continue;
+                        }
+                        fill(frame);
+                        delivered++;
+                        mListener.onFrameAvailable(frame);
+                    }
+                }
+            };
+            mThread.start();
+        }
+
+        @Override
+        public void stop() {
+            mStopped = true;
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            mBuffers.clear();
+            mClosed = true;
+        }
+
+        void awaitDelivered() throws InterruptedException {
+            mThread.join(TIMEOUT_MS);
+            assertFalse("Frames not delivered in time", mThread.isAlive());
+        }
+
+        boolean isClosed() {
+            return mClosed;
+        }
+
+        private void fill(byte[] frame) {
+            int lumaSize = WIDTH * HEIGHT;
+            Arrays.fill(frame, 0, lumaSize, mY);
+            for (int i = lumaSize; i + 1 < frame.length; i += 2) {
+                frame[i] = mV;
+                frame[i + 1] = mU;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import android.os.Debug;
+
+import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks that the analyse, name and publish path allocates nothing once warmed up
+ */
+public class AllocationFreePathTest extends TestCase {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 360;
+    private static final int FRAMES = 300;
+
+    private FrameAnalyzer mAnalyzer = new FrameAnalyzer(WIDTH, HEIGHT);
+    private byte[] mFrame = new byte[mAnalyzer.getFrameSize()];
+    private ColorAnalyzerUtil.RGBColor mColor = new ColorAnalyzerUtil.RGBColor(0, 0, 0);
+    private char[] mHexBuffer = new char[7];
+    private ColorNameCache mColorNameCache = null;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        new Random(7).nextBytes(mFrame);
+        mColorNameCache = ColorNameCache.createInstance();
+    }
+
+    public void testSteadyStateAllocatesNothing() {
+
+        // Warm up so class loading and lazy tables are out of the way
+        runFrames();
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocCount();
+            runFrames();
+            assertEquals("Allocations in steady state", 0, Debug.getThreadAllocCount());
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+
+    public void testHexCodesAgree() {
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            int r = random.nextInt(256);
+            int g = random.nextInt(256);
+            int b = random.nextInt(256);
+            ColorAnalyzerUtil.RGBColor color = new ColorAnalyzerUtil.RGBColor(r, g, b);
+            int length = color.writeHexCode(mHexBuffer, 0);
+            assertEquals(new String(mHexBuffer, 0, length), color.getHexCode());
+            assertEquals(String.format("%02X%02X%02X", r, g, b), color.getHexCode());
+        }
+    }
+
+    private void runFrames() {
+        for (int i = 0; i < FRAMES; i++) {
+            int x = (i * 7) % (WIDTH - 32);
+            int y = (i * 5) % (HEIGHT - 32);
+            int color = mAnalyzer.getAverageColorPacked(mFrame, x, y, x + 31, y + 32);
+            mAnalyzer.getAverageColor(mFrame, x, y, x + 31, y + 32, mColor);
+            mHexBuffer[0] = '#';
+            ColorAnalyzerUtil.writeHexCode(color, mHexBuffer, 1);
+            mColor.setName(mColorNameCache.getColorName(mColor.getRed(), mColor.getGreen(), mColor.getBlue()));
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import android.util.Log;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Accuracy report for {@link ColorAnalyzerUtil#AVERAGE_YUV} against {@link ColorAnalyzerUtil#AVERAGE_RGB}
+ */
+public class AveragingAccuracyReportTest extends TestCase {
+
+    private static final String TAG = "AveragingAccuracyReportTest";
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 360;
+
+    private byte[] mFrame = new byte[WIDTH * HEIGHT * 3 / 2];
+    private Random mRandom = new Random(42);
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ColorAnalyzerUtil.FRAME_WIDTH = WIDTH;
+        ColorAnalyzerUtil.FRAME_HEIGHT = HEIGHT;
+    }
+
+    public void testUnclampedContentStaysWithinRounding() {
+        fill(64, 128, 100, 56);
+        AveragingAccuracyReport report = sampleRegions();
+        Log.i(TAG, report.toString());
+        assertTrue(report.toString(), report.getMaxError() <= 2);
+    }
+
+    public void testSaturatedContentReport() {
+        fill(0, 256, 0, 256);
+        AveragingAccuracyReport report = sampleRegions();
+        Log.i(TAG, report.toString());
+        assertEquals(200, report.getSampleCount());
+    }
+
+    private void fill(int lumaMin, int lumaSpan, int chromaMin, int chromaSpan) {
+        int frameSize = WIDTH * HEIGHT;
+        for (int i = 0; i < mFrame.length; i++) {
+            mFrame[i] = (byte) ((i < frameSize)
+                    ? lumaMin + mRandom.nextInt(lumaSpan)
+                    : chromaMin + mRandom.nextInt(chromaSpan));
+        }
+    }
+
+    private AveragingAccuracyReport sampleRegions() {
+        AveragingAccuracyReport report = new AveragingAccuracyReport();
+        for (int i = 0; i < 200; i++) {
+            int x1 = mRandom.nextInt(WIDTH - 1);
+            int y1 = mRandom.nextInt(HEIGHT - 1);
+            int x2 = x1 + mRandom.nextInt(Math.min(64, WIDTH - x1));
+            int y2 = y1 + 1 + mRandom.nextInt(Math.min(64, HEIGHT - y1 - 1));
+            report.addSample(mFrame, x1, y1, x2, y2);
+        }
+        return report;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Stores, maps and invalidates derived tables
+ */
+public class DerivedTableCacheTest extends TestCase {
+
+    private static final String NAME = "table";
+    private static final int VERSION = 3;
+    private static final long KEY = 0x123456789abcdefL;
+
+    private File mDirectory = null;
+    private DerivedTableCache mCache = null;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mDirectory = new File(System.getProperty("java.io.tmpdir"), "DerivedTableCacheTest" + System.nanoTime());
+        mCache = new DerivedTableCache(mDirectory);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mCache.clear();
+        mDirectory.delete();
+        super.tearDown();
+    }
+
+    public void testRoundTrip() throws IOException {
+        assertNull(mCache.get(NAME, VERSION, KEY));
+        mCache.put(NAME, VERSION, KEY, createPayload(1000));
+
+        ByteBuffer payload = mCache.get(NAME, VERSION, KEY);
+        assertNotNull(payload);
+        assertEquals(createPayload(1000), payload);
+    }
+
+    public void testMismatchesAreRebuilt() throws IOException {
+        mCache.put(NAME, VERSION, KEY, createPayload(1000));
+        assertNull(mCache.get(NAME, VERSION + 1, KEY));
+
+        // The stale file is gone, so the matching version misses too
+        assertNull(mCache.get(NAME, VERSION, KEY));
+
+        mCache.put(NAME, VERSION, KEY, createPayload(1000));
+        assertNull(mCache.get(NAME, VERSION, KEY + 1));
+        assertNotNull(mCache.get(NAME, VERSION, KEY));
+    }
+
+    public void testCorruptPayloadIsRejected() throws IOException {
+        mCache.put(NAME, VERSION, KEY, createPayload(1000));
+        File[] files = mDirectory.listFiles();
+        assertEquals(1, files.length);
+
+        RandomAccessFile file = new RandomAccessFile(files[0], "rw");
+        try {
+            file.seek(file.length() - 10);
+            int value = file.read();
+            file.seek(file.length() - 10);
+            file.write(value ^ 1);
+        } finally {
+            file.close();
+        }
+        assertNull(mCache.get(NAME, VERSION, KEY));
+        assertFalse(files[0].exists());
+    }
+
+    public void testNewKeyReplacesOldTable() throws IOException {
+        mCache.put(NAME, VERSION, KEY, createPayload(10));
+        mCache.put("other", VERSION, KEY, createPayload(10));
+        mCache.put(NAME, VERSION, KEY + 1, createPayload(20));
+
+        assertNull(mCache.get(NAME, VERSION, KEY));
+        assertNotNull(mCache.get(NAME, VERSION, KEY + 1));
+        assertNotNull(mCache.get("other", VERSION, KEY));
+        assertEquals(2, mDirectory.listFiles().length);
+    }
+
+    private static ByteBuffer createPayload(int length) {
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        for (int i = 0; i < length; i++) {
+            payload.put((byte) (i * 31));
+        }
+        payload.flip();
+        return payload;
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that the analysis thread always moves on to the newest frame and accounts for every frame
+ */
+public class FrameAnalysisThreadTest extends TestCase {
+
+    private static final int FRAMES = 200;
+
+    private final Object mLock = new Object();
+    private int mReleasedCount = 0;
+    private int mLastAnalyzed = -1;
+    private boolean mOutOfOrder = false;
+
+    public void testSlowAnalysisNeverBuildsBacklog() throws InterruptedException {
+        final CountDownLatch lastFrame = new CountDownLatch(1);
+        FrameAnalysisThread thread = new FrameAnalysisThread(new FrameAnalysisThread.Callback() {
+            @Override
+            public void onAnalyzeFrame(byte[] frame) {
+                synchronized (mLock) {
+                    int id = frame[0] & 0xFF;
+                    mOutOfOrder |= id <= mLastAnalyzed;
+                    mLastAnalyzed = id;
+                }
+                if ((frame[0] & 0xFF) == FRAMES - 1) {
+                    lastFrame.countDown();
+                }
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onFrameReleased(byte[] frame) {
+                synchronized (mLock) {
+                    mReleasedCount++;
+                }
+            }
+        });
+        thread.start();
+
+        for (int i = 0; i < FRAMES; i++) {
+            assertTrue(thread.submit(new byte[]{(byte) i}));
+            if (i % 8 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        assertTrue("Newest frame was never analysed", lastFrame.await(5, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        thread.quit();
+
+        assertFalse(thread.submit(new byte[1]));
+        synchronized (mLock) {
+            assertFalse("Frames analysed out of order", mOutOfOrder);
+            assertEquals(FRAMES - 1, mLastAnalyzed);
+            assertEquals(FRAMES, mReleasedCount);
+        }
+        assertEquals(FRAMES + 1, thread.getSubmittedCount());
+        assertEquals(FRAMES, thread.getAnalyzedCount() + thread.getSupersededCount());
+        assertTrue("Expected superseded frames", thread.getSupersededCount() > 0);
+        assertEquals(1, thread.getDroppedCount());
+    }
+
+}
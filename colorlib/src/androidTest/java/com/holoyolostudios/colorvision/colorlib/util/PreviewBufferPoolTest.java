@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks buffer reuse and starvation accounting of the preview buffer pool
+ */
+public class PreviewBufferPoolTest extends TestCase {
+
+    private static final int FRAME_SIZE = 640 * 360 * 3 / 2;
+    private static final int LOAD_FRAMES = 600;
+
+    private final ArrayDeque<byte[]> mCameraBuffers = new ArrayDeque<byte[]>();
+    private final PreviewBufferPool.BufferSink mSink = new PreviewBufferPool.BufferSink() {
+        @Override
+        public void addCallbackBuffer(byte[] buffer) {
+            mCameraBuffers.add(buffer);
+        }
+    };
+    private PreviewBufferPool mPool = new PreviewBufferPool(PreviewBufferPool.DEFAULT_BUFFER_COUNT);
+
+    public void testBuffersAreReusedAcrossRestarts() {
+        mPool.start(FRAME_SIZE, mSink);
+        assertEquals(mPool.getBufferCount(), mCameraBuffers.size());
+        byte[] first = mCameraBuffers.peek();
+        assertEquals(FRAME_SIZE, first.length);
+
+        mPool.stop();
+        mCameraBuffers.clear();
+        mPool.start(FRAME_SIZE, mSink);
+        assertSame(first, mCameraBuffers.peek());
+        assertEquals(mPool.getBufferCount(), mPool.getAllocationCount());
+
+        mPool.stop();
+        mCameraBuffers.clear();
+        mPool.start(FRAME_SIZE * 2, mSink);
+        assertEquals(FRAME_SIZE * 2, mCameraBuffers.peek().length);
+        assertEquals(2 * mPool.getBufferCount(), mPool.getAllocationCount());
+    }
+
+    public void testStarvationIsCounted() {
+        mPool.start(FRAME_SIZE, mSink);
+
+        // Released right away: the camera never runs dry
+        for (int i = 0; i < 10; i++) {
+            byte[] frame = mCameraBuffers.poll();
+            mPool.onFrameDelivered(frame);
+            mPool.release(frame);
+        }
+        assertEquals(0, mPool.getStarvedCount());
+        assertEquals(mPool.getBufferCount(), mPool.getQueuedCount());
+
+        // Holding every buffer leaves the camera with nothing to fill
+        ArrayDeque<byte[]> held = new ArrayDeque<byte[]>();
+        while (!mCameraBuffers.isEmpty()) {
+            byte[] frame = mCameraBuffers.poll();
+            mPool.onFrameDelivered(frame);
+            held.add(frame);
+        }
+        assertEquals(1, mPool.getStarvedCount());
+        assertEquals(10 + mPool.getBufferCount(), mPool.getDeliveredCount());
+
+        // Buffers released after stop stay in the pool
+        mPool.stop();
+        mPool.release(held.poll());
+        assertTrue(mCameraBuffers.isEmpty());
+
+        // Foreign buffers are ignored
+        mPool.start(FRAME_SIZE, mSink);
+        mCameraBuffers.clear();
+        mPool.release(new byte[FRAME_SIZE]);
+        assertTrue(mCameraBuffers.isEmpty());
+    }
+
+    public void testAnalysisThreadUnderLoad() throws InterruptedException {
+        final ConcurrentLinkedQueue<byte[]> camera = new ConcurrentLinkedQueue<byte[]>();
+        final Set<byte[]> reading = Collections.synchronizedSet(
+                Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>()));
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        PreviewBufferPool.BufferSink sink = new PreviewBufferPool.BufferSink() {
+            @Override
+            public void addCallbackBuffer(byte[] buffer) {
+                if (reading.contains(buffer)) {
+                    failure.compareAndSet(null, "A buffer went back to the camera while it was read");
+                }
+                camera.add(buffer);
+            }
+        };
+        FrameAnalysisThread thread = new FrameAnalysisThread(new FrameAnalysisThread.Callback() {
+            @Override
+            public void onAnalyzeFrame(byte[] frame) {
+                reading.add(frame);
+                int id = readId(frame);
+
+                // Analysis far slower than the camera
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (readId(frame) != id) {
+                    failure.compareAndSet(null, "Frame " + id + " was overwritten while it was read");
+                }
+                reading.remove(frame);
+            }
+
+            @Override
+            public void onFrameReleased(byte[] frame) {
+                mPool.release(frame);
+            }
+        });
+        thread.start();
+        mPool.start(FRAME_SIZE, sink);
+
+        int dropped = 0;
+        for (int i = 0; i < LOAD_FRAMES; i++) {
+
+            // Restart the preview part way through, as a surface change does, with frames in flight
+            if (i == LOAD_FRAMES / 2) {
+                mPool.stop();
+                camera.clear();
+                mPool.start(FRAME_SIZE, sink);
+            }
+            byte[] frame = camera.poll();
+            if (frame == null) {
+                dropped++;
+                Thread.sleep(1);
+                continue;
+            }
+            writeId(frame, i);
+            mPool.onFrameDelivered(frame);
+            if (!thread.submit(frame)) {
+                mPool.release(frame);
+            }
+            if (i % 16 == 0) {
+                Thread.sleep(1);
+            }
+        }
+        thread.quit();
+        mPool.stop();
+        camera.clear();
+
+        assertNull(failure.get(), failure.get());
+        assertEquals("The camera ran out of buffers", 0, dropped);
+        assertEquals(0, mPool.getStarvedCount());
+        assertEquals(LOAD_FRAMES, mPool.getDeliveredCount());
+
+        // Frames the worker kept on quitting come back, so a restart queues the whole ring
+        mPool.releaseAll();
+        mPool.start(FRAME_SIZE, sink);
+        assertEquals(mPool.getBufferCount(), camera.size());
+        assertEquals(mPool.getBufferCount(), mPool.getAllocationCount());
+    }
+
+    private static void writeId(byte[] frame, int id) {
+        for (int i = 0; i < frame.length; i += 4096) {
+            frame[i] = (byte) id;
+            frame[i + 1] = (byte) (id >> 8);
+        }
+    }
+
+    private static int readId(byte[] frame) {
+        int id = (frame[0] & 0xFF) | ((frame[1] & 0xFF) << 8);
+        for (int i = 4096; i < frame.length; i += 4096) {
+            if (((frame[i] & 0xFF) | ((frame[i + 1] & 0xFF) << 8)) != id) {
+                return -1;
+            }
+        }
+        return id;
+    }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Checks the error bound and the pixel budget of the progressively sampled average
+ */
+public class SampledAveragingTest extends TestCase {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final int REGIONS = 200;
+
+    private FrameAnalyzer mAnalyzer = new FrameAnalyzer(WIDTH, HEIGHT);
+
+    public void testFlatRegionMatchesFullAverage() {
+        byte[] frame = new byte[mAnalyzer.getFrameSize()];
+        fillLuma(frame, 150);
+        int full = mAnalyzer.getAverageColor(frame, 10, 10, 73, 74).getPixel();
+        int sampled = mAnalyzer.getAverageColorSampled(frame, 10, 10, 73, 74, 1f, 16).getPixel();
+        assertEquals(full, sampled);
+    }
+
+    public void testUnboundedMatchesFullAverage() {
+        byte[] frame = noiseFrame(3);
+        Random random = new Random(11);
+        for (int i = 0; i < REGIONS; i++) {
+            int x1 = random.nextInt(WIDTH - 40);
+            int y1 = random.nextInt(HEIGHT - 40);
+            int x2 = x1 + 1 + random.nextInt(38);
+            int y2 = y1 + 2 + random.nextInt(38);
+            int full = mAnalyzer.getAverageColor(frame, x1, y1, x2, y2).getPixel();
+            assertClose(full, mAnalyzer.getAverageColorSampled(frame, x1, y1, x2, y2, 0f, 0).getPixel(), 1);
+            assertClose(full, mAnalyzer.getAverageColorSampled(frame, x1, y1, x2, y2, 0f,
+                    Integer.MAX_VALUE).getPixel(), 1);
+        }
+    }
+
+    public void testErrorBound() {
+        byte[] frame = noiseFrame(5);
+        Random random = new Random(13);
+        float maxError = 2f;
+        for (int i = 0; i < REGIONS; i++) {
+            int x1 = random.nextInt(WIDTH - 100);
+            int y1 = random.nextInt(HEIGHT - 100);
+            int full = mAnalyzer.getAverageColor(frame, x1, y1, x1 + 95, y1 + 96).getPixel();
+            int sampled = mAnalyzer.getAverageColorSampled(frame, x1, y1, x1 + 95, y1 + 96, maxError, 0).getPixel();
+
+            // Well past the standard error, but far tighter than the spread of the noise
+            assertClose(full, sampled, (int) (4 * maxError) + 1);
+        }
+    }
+
+    public void testBudgetDoesNotFavourTopRows() {
+
+        // A vertical ramp, so stopping part way down a lattice pulls the mean towards black
+        byte[] frame = new byte[mAnalyzer.getFrameSize()];
+        fillLuma(frame, 0);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                frame[y * WIDTH + x] = (byte) (16 + (y * 219) / HEIGHT);
+            }
+        }
+        int full = mAnalyzer.getAverageColor(frame, 0, 0, 127, 128).getPixel();
+        for (int budget = 256; budget <= 128 * 128; budget += 37) {
+            int sampled = mAnalyzer.getAverageColorSampled(frame, 0, 0, 127, 128, 0f, budget).getPixel();
+            assertClose(full, sampled, 5);
+        }
+
+        // A budget below the first lattice coarsens it rather than reading part of it
+        assertEquals(mAnalyzer.getColorAtPoint(frame, 0, 0),
+                mAnalyzer.getAverageColorSampled(frame, 0, 0, 127, 128, 0f, 1).getPixel());
+    }
+
+    public void testBudgetHoldsForThinAreas() {
+        int[][] sizes = {{200, 2}, {2, 200}, {320, 1}, {1, 240}, {97, 3}, {5, 131}, {1, 1}};
+        for (int[] size : sizes) {
+            for (int budget = 1; budget <= 100; budget++) {
+                int step = FrameAnalyzer.firstStep(size[0], size[1], budget);
+                int samples = FrameAnalyzer.latticeSize(size[0], size[1], step);
+                assertTrue(size[0] + "x" + size[1] + " read " + samples + " samples for a budget of " + budget,
+                        samples <= budget);
+            }
+        }
+
+        // Columns 2 mod 4 differ, so a first lattice with step 2 would pull the mean off column 0
+        byte[] frame = new byte[mAnalyzer.getFrameSize()];
+        fillLuma(frame, 60);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 2; x < 200; x += 4) {
+                frame[y * WIDTH + x] = (byte) 200;
+            }
+        }
+        assertEquals(mAnalyzer.getColorAtPoint(frame, 0, 0),
+                mAnalyzer.getAverageColorSampled(frame, 0, 0, 199, 2, 0f, 50).getPixel());
+    }
+
+    private byte[] noiseFrame(long seed) {
+        byte[] frame = new byte[mAnalyzer.getFrameSize()];
+        new Random(seed).nextBytes(frame);
+        return frame;
+    }
+
+    private void fillLuma(byte[] frame, int luma) {
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            frame[i] = (byte) luma;
+        }
+        for (int i = WIDTH * HEIGHT; i < frame.length; i++) {
+            frame[i] = (byte) 128;
+        }
+    }
+
+    private static void assertClose(int expected, int actual, int tolerance) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+            int e = (expected >> shift) & 0xFF;
+            int a = (actual >> shift) & 0xFF;
+            if (Math.abs(e - a) > tolerance) {
+                fail(String.format("Expected #%06X but was #%06X", expected & 0xFFFFFF, actual & 0xFFFFFF));
+            }
+        }
+    }
+
+}
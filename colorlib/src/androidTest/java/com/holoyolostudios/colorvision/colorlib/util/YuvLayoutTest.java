@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the buffer sizes the layouts ask for against the camera's own formulas
+ */
+public class YuvLayoutTest extends TestCase {
+
+    public void testSemiPlanarFrameSize() {
+        assertEquals(640 * 480 * 3 / 2, YuvLayout.nv21(640, 480, 640).getFrameSize());
+        assertEquals(640 * 480 * 3 / 2, YuvLayout.nv12(640, 480, 640).getFrameSize());
+        assertEquals(1920 * 1080 * 3 / 2, YuvLayout.nv21(1920, 1080, 1920).getFrameSize());
+        assertEquals(176 * 144 * 3 / 2, YuvLayout.nv21(176, 144, 176).getFrameSize());
+    }
+
+    public void testPlanarFrameSize() {
+
+        // YV12 frames are y stride * height plus two full chroma planes of half the height
+        int yStride = 320;
+        int chromaStride = 160;
+        int expected = yStride * 240 + chromaStride * 120 * 2;
+        assertEquals(expected, YuvLayout.yv12(320, 240, yStride, chromaStride).getFrameSize());
+        assertEquals(expected, YuvLayout.i420(320, 240, yStride, chromaStride).getFrameSize());
+
+        // Padded chroma rows
+        assertEquals(336 * 240 + 176 * 120 * 2, YuvLayout.yv12(330, 240, 336, 176).getFrameSize());
+    }
+
+}
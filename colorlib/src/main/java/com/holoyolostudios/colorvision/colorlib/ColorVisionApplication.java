@@ -19,6 +19,8 @@ package com.holoyolostudios.colorvision.colorlib;
 import android.app.Application;
 import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
 
+import java.io.File;
+
 /**
  * ColorVisionApplication
  * <p/>
@@ -31,12 +33,17 @@ import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
  */
 public class ColorVisionApplication extends Application {
 
+    // Constants
+    private static final String COLOR_CACHE_DIRECTORY = "colors";
+
     @Override
     public void onCreate() {
         super.onCreate();
 
-        // Create a new instance for the ColorNameCache
-        ColorNameCache.createInstance();
+        // Create a new instance for the ColorNameCache, built off the main thread. The palette and
+        // its lookup table are memory mapped from the cache directory after the first start.
+        ColorNameCache.createInstanceAsync(ColorNameCache.LOOKUP_QUANTIZED,
+                new File(getCacheDir(), COLOR_CACHE_DIRECTORY));
 
     }
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.camera;
+
+import android.graphics.ImageFormat;
+import android.graphics.SurfaceTexture;
+import android.hardware.Camera;
+import com.holoyolostudios.colorvision.colorlib.engine.FrameSource;
+import com.holoyolostudios.colorvision.colorlib.util.YuvLayout;
+
+import java.io.IOException;
+
+/**
+ * CameraFrameSource
+ * <p/>
+ * {@link com.holoyolostudios.colorvision.colorlib.engine.FrameSource} backed by the preview of an
+ * open {@link android.hardware.Camera}. The caller opens and configures the camera, including
+ * the NV21 preview format, and releases it after the engine has stopped; this class only wires
+ * the preview callback buffers and the preview texture.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ * @see {@link Camera.PreviewCallback}
+ */
+public class CameraFrameSource implements FrameSource, Camera.PreviewCallback {
+
+    // Members
+    private final Camera mCamera;
+    private final SurfaceTexture mSurfaceTexture;
+    private Listener mListener = null;
+    private YuvLayout mLayout = null;
+
+    /**
+     * Constructor
+     *
+     * @param camera         {@link android.hardware.Camera} opened and configured
+     * @param surfaceTexture {@link android.graphics.SurfaceTexture} to show the preview on
+     */
+    public CameraFrameSource(Camera camera, SurfaceTexture surfaceTexture) {
+        mCamera = camera;
+        mSurfaceTexture = surfaceTexture;
+    }
+
+    /**
+     * Get the camera
+     *
+     * @return {@link android.hardware.Camera}
+     */
+    public Camera getCamera() {
+        return mCamera;
+    }
+
+    @Override
+    public void open(Listener listener) throws IOException {
+        Camera.Parameters params = mCamera.getParameters();
+        if (params.getPreviewFormat() != ImageFormat.NV21) {
+            throw new IOException("Unsupported preview format " + params.getPreviewFormat());
+        }
+        Camera.Size size = params.getPreviewSize();
+        mLayout = YuvLayout.nv21(size.width, size.height, size.width);
+        mListener = listener;
+        mCamera.setPreviewCallbackWithBuffer(this);
+        mCamera.setPreviewTexture(mSurfaceTexture);
+    }
+
+    @Override
+    public YuvLayout getLayout() {
+        return mLayout;
+    }
+
+    @Override
+    public void addCallbackBuffer(byte[] buffer) {
+        mCamera.addCallbackBuffer(buffer);
+    }
+
+    @Override
+    public void start() {
+        mCamera.startPreview();
+    }
+
+    @Override
+    public void stop() {
+        mCamera.stopPreview();
+        mCamera.setPreviewCallbackWithBuffer(null);
+    }
+
+    @Override
+    public void close() {
+        mListener = null;
+    }
+
+    @Override
+    public void onPreviewFrame(byte[] data, Camera camera) {
+        Listener listener = mListener;
+        if (listener != null && data != null) {
+            listener.onFrameAvailable(data);
+        }
+    }
+
+}
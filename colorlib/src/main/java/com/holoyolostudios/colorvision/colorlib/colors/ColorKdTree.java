@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+/**
+ * ColorKdTree
+ * <p/>
+ * Static k-d tree over a palette of RGB colors for exact nearest neighbour queries. Distances are
+ * squared euclidean distances in integer RGB space, which rank colors exactly like the mean
+ * squared error. Ties go to the lowest palette index, so results match a linear scan that keeps
+ * the first best match.
+ * <p/>
+ * The tree is implicit: the points are reordered so that the median of every subrange
+ * {@code [lo, hi)} sits at {@code (lo + hi) >>> 1} and splits that range on the axis with the
+ * widest spread. Queries allocate nothing and the tree is immutable once built, so it can be
+ * shared between threads.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorKdTree {
+
+    // Axes
+    private static final byte AXIS_RED = 0;
+    private static final byte AXIS_GREEN = 1;
+    private static final byte AXIS_BLUE = 2;
+
+    // Members
+    private final int mSize;
+    private final int[] mIndex;
+    private final int[] mRed;
+    private final int[] mGreen;
+    private final int[] mBlue;
+    private final byte[] mAxis;
+    private final int[] mPalette;
+
+    /**
+     * Constructor
+     *
+     * @param red   {@link Integer} array of red values, one per palette entry
+     * @param green {@link Integer} array of green values
+     * @param blue  {@link Integer} array of blue values
+     */
+    public ColorKdTree(int[] red, int[] green, int[] blue) {
+        if (red.length != green.length || red.length != blue.length) {
+            throw new IllegalArgumentException("Channel arrays must have the same length");
+        }
+        mSize = red.length;
+        mIndex = new int[mSize];
+        mRed = red.clone();
+        mGreen = green.clone();
+        mBlue = blue.clone();
+        mAxis = new byte[mSize];
+        mPalette = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            mIndex[i] = i;
+            mPalette[i] = (red[i] << 16) | (green[i] << 8) | blue[i];
+        }
+        build(0, mSize);
+    }
+
+    /**
+     * Get the number of colors in the tree
+     *
+     * @return {@link Integer}
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Find the palette index of the color closest to the given one
+     *
+     * @param r {@link Integer} 0-255
+     * @param g {@link Integer} 0-255
+     * @param b {@link Integer} 0-255
+     * @return {@link Integer} palette index, or -1 if the tree is empty
+     */
+    public int nearest(int r, int g, int b) {
+        return (int) nearestPacked(r, g, b);
+    }
+
+    /**
+     * Find the closest color and its distance
+     *
+     * @param r {@link Integer} 0-255
+     * @param g {@link Integer} 0-255
+     * @param b {@link Integer} 0-255
+     * @return {@link Long} squared distance in the high 32 bits, palette index in the low 32 bits,
+     * or -1 if the tree is empty
+     */
+    public long nearestPacked(int r, int g, int b) {
+        if (mSize == 0) {
+            return -1L;
+        }
+        return search(0, mSize, r, g, b, -1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Find the closest color that differs from a given palette entry. Entries with exactly the same
+     * RGB value as that entry are skipped too, so the result is the runner up that could actually
+     * take over the name, not a duplicate of the winner.
+     *
+     * @param r     {@link Integer} 0-255
+     * @param g     {@link Integer} 0-255
+     * @param b     {@link Integer} 0-255
+     * @param index {@link Integer} palette index to exclude, usually the result of {@link #nearest(int, int, int)}
+     * @return {@link Long} packed like {@link #nearestPacked(int, int, int)}, or -1 if no other color exists
+     */
+    public long secondNearestPacked(int r, int g, int b, int index) {
+        long best = search(0, mSize, r, g, b, mPalette[index], Long.MAX_VALUE);
+        return (best == Long.MAX_VALUE) ? -1L : best;
+    }
+
+    /**
+     * Collect the palette indexes of all colors within a distance of a point
+     *
+     * @param r              {@link Integer} 0-255
+     * @param g              {@link Integer} 0-255
+     * @param b              {@link Integer} 0-255
+     * @param radiusSquared  {@link Integer} inclusive squared distance
+     * @param out            {@link Integer} array receiving indexes, in no particular order
+     * @return {@link Integer} number of colors in range, which may exceed {@code out.length}; only
+     * the first {@code out.length} are stored
+     */
+    public int collectWithin(int r, int g, int b, int radiusSquared, int[] out) {
+        return collect(0, mSize, r, g, b, radiusSquared, out, 0);
+    }
+
+    /**
+     * Range search over a subrange
+     *
+     * @param lo            {@link Integer} inclusive
+     * @param hi            {@link Integer} exclusive
+     * @param r             {@link Integer}
+     * @param g             {@link Integer}
+     * @param b             {@link Integer}
+     * @param radiusSquared {@link Integer}
+     * @param out           {@link Integer} array
+     * @param count         {@link Integer} colors found so far
+     * @return {@link Integer} colors found including this subrange
+     */
+    private int collect(int lo, int hi, int r, int g, int b, int radiusSquared, int[] out, int count) {
+        if (lo >= hi) {
+            return count;
+        }
+        int mid = (lo + hi) >>> 1;
+        int dr = r - mRed[mid];
+        int dg = g - mGreen[mid];
+        int db = b - mBlue[mid];
+        if (dr * dr + dg * dg + db * db <= radiusSquared) {
+            if (count < out.length) {
+                out[count] = mIndex[mid];
+            }
+            count++;
+        }
+        int delta = (mAxis[mid] == AXIS_RED) ? dr : (mAxis[mid] == AXIS_GREEN) ? dg : db;
+        if (delta <= 0 || delta * delta <= radiusSquared) {
+            count = collect(lo, mid, r, g, b, radiusSquared, out, count);
+        }
+        if (delta >= 0 || delta * delta <= radiusSquared) {
+            count = collect(mid + 1, hi, r, g, b, radiusSquared, out, count);
+        }
+        return count;
+    }
+
+    /**
+     * Get the packed RGB value of a palette entry
+     *
+     * @param index {@link Integer} palette index
+     * @return {@link Integer} 0xRRGGBB
+     */
+    public int getColor(int index) {
+        return mPalette[index];
+    }
+
+    /**
+     * Search a subrange. Results are packed as distance << 32 | index, so comparing two packed
+     * results compares distances first and breaks ties on the lower index.
+     *
+     * @param lo      {@link Integer} inclusive
+     * @param hi      {@link Integer} exclusive
+     * @param r       {@link Integer}
+     * @param g       {@link Integer}
+     * @param b       {@link Integer}
+     * @param exclude {@link Integer} packed RGB value to skip, or -1
+     * @param best    {@link Long} best packed result so far
+     * @return {@link Long} best packed result including this subrange
+     */
+    private long search(int lo, int hi, int r, int g, int b, int exclude, long best) {
+        if (lo >= hi) {
+            return best;
+        }
+        int mid = (lo + hi) >>> 1;
+        int dr = r - mRed[mid];
+        int dg = g - mGreen[mid];
+        int db = b - mBlue[mid];
+        long candidate = ((long) (dr * dr + dg * dg + db * db) << 32) | mIndex[mid];
+        if (candidate < best && mPalette[mIndex[mid]] != exclude) {
+            best = candidate;
+        }
+
+        int delta;
+        switch (mAxis[mid]) {
+            case AXIS_RED:
+                delta = dr;
+                break;
+            case AXIS_GREEN:
+                delta = dg;
+                break;
+            default:
+                delta = db;
+                break;
+        }
+
+        // Descend on the query's side first, then cross the plane only if a point at the plane
+        // distance could still beat or tie the best match
+        boolean left = delta < 0;
+        best = left ? search(lo, mid, r, g, b, exclude, best) : search(mid + 1, hi, r, g, b, exclude, best);
+        if ((long) (delta * delta) <= (best >>> 32)) {
+            best = left ? search(mid + 1, hi, r, g, b, exclude, best) : search(lo, mid, r, g, b, exclude, best);
+        }
+        return best;
+    }
+
+    /**
+     * Arrange a subrange so its median on the widest axis sits in the middle, then recurse
+     *
+     * @param lo {@link Integer} inclusive
+     * @param hi {@link Integer} exclusive
+     */
+    private void build(int lo, int hi) {
+        if (hi - lo <= 0) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        byte axis = widestAxis(lo, hi);
+        select(lo, hi - 1, mid, axis);
+        mAxis[mid] = axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    /**
+     * Pick the axis with the largest spread in a subrange
+     *
+     * @param lo {@link Integer} inclusive
+     * @param hi {@link Integer} exclusive
+     * @return {@link Byte}
+     */
+    private byte widestAxis(int lo, int hi) {
+        int minR = 255, maxR = 0, minG = 255, maxG = 0, minB = 255, maxB = 0;
+        for (int i = lo; i < hi; i++) {
+            minR = Math.min(minR, mRed[i]);
+            maxR = Math.max(maxR, mRed[i]);
+            minG = Math.min(minG, mGreen[i]);
+            maxG = Math.max(maxG, mGreen[i]);
+            minB = Math.min(minB, mBlue[i]);
+            maxB = Math.max(maxB, mBlue[i]);
+        }
+        int spreadR = maxR - minR;
+        int spreadG = maxG - minG;
+        int spreadB = maxB - minB;
+        if (spreadR >= spreadG && spreadR >= spreadB) {
+            return AXIS_RED;
+        }
+        return (spreadG >= spreadB) ? AXIS_GREEN : AXIS_BLUE;
+    }
+
+    /**
+     * Quickselect: partially order {@code [left, right]} so position {@code k} holds the point that
+     * would be there if the range were sorted on the axis
+     *
+     * @param left  {@link Integer} inclusive
+     * @param right {@link Integer} inclusive
+     * @param k     {@link Integer}
+     * @param axis  {@link Byte}
+     */
+    private void select(int left, int right, int k, byte axis) {
+        while (left < right) {
+            int pivot = key((left + right) >>> 1, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (key(i, axis) < pivot) {
+                    i++;
+                }
+                while (key(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get a point's coordinate on an axis
+     *
+     * @param i    {@link Integer}
+     * @param axis {@link Byte}
+     * @return {@link Integer}
+     */
+    private int key(int i, byte axis) {
+        return (axis == AXIS_RED) ? mRed[i] : (axis == AXIS_GREEN) ? mGreen[i] : mBlue[i];
+    }
+
+    /**
+     * Swap two points
+     *
+     * @param i {@link Integer}
+     * @param j {@link Integer}
+     */
+    private void swap(int i, int j) {
+        int t = mIndex[i];
+        mIndex[i] = mIndex[j];
+        mIndex[j] = t;
+        t = mRed[i];
+        mRed[i] = mRed[j];
+        mRed[j] = t;
+        t = mGreen[i];
+        mGreen[i] = mGreen[j];
+        mGreen[j] = t;
+        t = mBlue[i];
+        mBlue[i] = mBlue[j];
+        mBlue[j] = t;
+    }
+
+}
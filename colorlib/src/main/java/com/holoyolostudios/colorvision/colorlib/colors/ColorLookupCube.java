@@ -0,0 +1,235 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * ColorLookupCube
+ * <p/>
+ * Quantized RGB cube that maps colors straight to palette indexes. Each channel is cut to
+ * {@link #BITS} bits, so every cell covers a 4x4x4 block of RGB values. A cell stores a palette
+ * index when the whole block lies inside one color's Voronoi region, otherwise it is marked
+ * {@link #AMBIGUOUS} and the caller has to run an exact search.
+ * <p/>
+ * Most cells are accepted cheaply: if the runner up is further from the cell center than the
+ * winner by more than twice the center to corner distance, the triangle inequality rules out every
+ * other color. The rest are tested exactly. Every color that could win anywhere in the block lies
+ * within that same margin of the center, and the block is inside the winner's region if, for each
+ * such color, the corner of the block that leans furthest towards it is still on the winner's side
+ * of the bisecting plane. Only cells that a region boundary really crosses fall back.
+ * <p/>
+ * The cells can be saved with {@link #write(java.nio.ByteBuffer)} and restored with
+ * {@link #ColorLookupCube(java.nio.ByteBuffer, int)}, so the table is built once per palette
+ * rather than on every launch.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorLookupCube {
+
+    // Constants
+    public static final int BITS = 6;
+    public static final int AMBIGUOUS = -1;
+    public static final int MAX_PALETTE_SIZE = 0xFFFF;
+    public static final int FORMAT_VERSION = 1;
+    private static final int SHIFT = 8 - BITS;
+    private static final int CELLS = 1 << (3 * BITS);
+    private static final char NO_ENTRY = 0xFFFF;
+
+    // Cells span 4 values per axis; measured from the integer center at offset 2 the furthest
+    // corner is 2 away on every axis, so no point is further than 2 * sqrt(3) from the center
+    private static final double MARGIN = 2.0d * 2.0d * Math.sqrt(3.0d);
+    private static final int MAX_CANDIDATES = 64;
+
+    // Members
+    private final CharBuffer mCells;
+    private int mAmbiguousCount = 0;
+
+    /**
+     * Constructor. Builds the whole cube with a few tree queries per cell, so call it off the UI
+     * thread.
+     *
+     * @param tree {@link com.holoyolostudios.colorvision.colorlib.colors.ColorKdTree} over the palette
+     * @throws InterruptedException if the building thread is interrupted
+     */
+    public ColorLookupCube(ColorKdTree tree) throws InterruptedException {
+        if (tree.size() == 0 || tree.size() > MAX_PALETTE_SIZE) {
+            throw new IllegalArgumentException("Palette size must be between 1 and " + MAX_PALETTE_SIZE);
+        }
+        final int side = 1 << BITS;
+        final int half = 1 << (SHIFT - 1);
+        final int[] candidates = new int[MAX_CANDIDATES];
+        final char[] cells = new char[CELLS];
+        int cell = 0;
+        for (int cr = 0; cr < side; cr++) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            int r = (cr << SHIFT) + half;
+            for (int cg = 0; cg < side; cg++) {
+                int g = (cg << SHIFT) + half;
+                for (int cb = 0; cb < side; cb++, cell++) {
+                    int b = (cb << SHIFT) + half;
+                    long first = tree.nearestPacked(r, g, b);
+                    int index = (int) first;
+                    if (isInside(tree, index, first >>> 32, r, g, b, candidates)) {
+                        cells[cell] = (char) index;
+                    } else {
+                        cells[cell] = NO_ENTRY;
+                        mAmbiguousCount++;
+                    }
+                }
+            }
+        }
+        mCells = CharBuffer.wrap(cells);
+    }
+
+    /**
+     * Constructor. Restores the cells saved by {@link #write(java.nio.ByteBuffer)}. The cube reads
+     * its cells from the buffer in place, so a memory mapped table never gets copied into the heap;
+     * the buffer must not change afterwards.
+     *
+     * @param data        {@link java.nio.ByteBuffer} holding {@link #getByteSize()} bytes from its position
+     * @param paletteSize {@link Integer} size of the palette the cells index into
+     */
+    public ColorLookupCube(ByteBuffer data, int paletteSize) {
+        if (data.remaining() != getByteSize()) {
+            throw new IllegalArgumentException("Expected " + getByteSize() + " bytes but found " + data.remaining());
+        }
+        mCells = data.slice().asCharBuffer();
+        for (int i = 0; i < CELLS; i++) {
+            char c = mCells.get(i);
+            if (c == NO_ENTRY) {
+                mAmbiguousCount++;
+            } else if (c >= paletteSize) {
+                throw new IllegalArgumentException("Cell refers to entry " + (int) c + " of " + paletteSize);
+            }
+        }
+    }
+
+    /**
+     * Check whether the whole block around a cell center is closest to the given palette entry
+     *
+     * @param tree       {@link com.holoyolostudios.colorvision.colorlib.colors.ColorKdTree}
+     * @param index      {@link Integer} nearest palette entry to the center
+     * @param distance   {@link Long} squared distance from the center to that entry
+     * @param r          {@link Integer} cell center
+     * @param g          {@link Integer} cell center
+     * @param b          {@link Integer} cell center
+     * @param candidates {@link Integer} scratch array
+     * @return {@link Boolean}
+     */
+    private static boolean isInside(ColorKdTree tree, int index, long distance, int r, int g, int b,
+                                    int[] candidates) {
+        double reach = Math.sqrt(distance) + MARGIN;
+        long second = tree.secondNearestPacked(r, g, b, index);
+
+        // Grow the margin by a hair so rounding can never accept a runner up that ties at a corner;
+        // those cells go through the exact test below
+        if (second < 0 || Math.sqrt(second >>> 32) > reach + 1e-9d) {
+            return true;
+        }
+
+        int count = tree.collectWithin(r, g, b, (int) Math.ceil(reach * reach), candidates);
+        if (count > candidates.length) {
+            return false;
+        }
+
+        final int low = -(1 << (SHIFT - 1));
+        final int high = low + (1 << SHIFT) - 1;
+        int winner = tree.getColor(index);
+        int ar = winner >> 16;
+        int ag = (winner >> 8) & 0xFF;
+        int ab = winner & 0xFF;
+        for (int i = 0; i < count; i++) {
+            int other = tree.getColor(candidates[i]);
+            if (other == winner) {
+                continue;
+            }
+            int br = other >> 16;
+            int bg = (other >> 8) & 0xFF;
+            int bb = other & 0xFF;
+
+            // |p - a|^2 - |p - b|^2 = 2 p.(b - a) + |a|^2 - |b|^2 is linear in p, so it peaks at the
+            // corner that leans towards b. A tie goes to the lower palette index.
+            int pr = r + ((br > ar) ? high : low);
+            int pg = g + ((bg > ag) ? high : low);
+            int pb = b + ((bb > ab) ? high : low);
+            int margin = 2 * (pr * (br - ar) + pg * (bg - ag) + pb * (bb - ab))
+                    + (ar * ar + ag * ag + ab * ab) - (br * br + bg * bg + bb * bb);
+            if (margin > 0 || (margin == 0 && candidates[i] < index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look up the palette index of a color
+     *
+     * @param r {@link Integer} 0-255
+     * @param g {@link Integer} 0-255
+     * @param b {@link Integer} 0-255
+     * @return {@link Integer} palette index, or {@link #AMBIGUOUS}
+     */
+    public int lookup(int r, int g, int b) {
+        char c = mCells.get(((r >> SHIFT) << (2 * BITS)) | ((g >> SHIFT) << BITS) | (b >> SHIFT));
+        return (c == NO_ENTRY) ? AMBIGUOUS : c;
+    }
+
+    /**
+     * Get the number of cells that need an exact search
+     *
+     * @return {@link Integer}
+     */
+    public int getAmbiguousCount() {
+        return mAmbiguousCount;
+    }
+
+    /**
+     * Save the cells, see {@link #ColorLookupCube(java.nio.ByteBuffer, int)}
+     *
+     * @param out {@link java.nio.ByteBuffer} with room for {@link #getByteSize()} bytes, advanced past them
+     */
+    public void write(ByteBuffer out) {
+        CharBuffer cells = out.asCharBuffer();
+        cells.put(mCells.duplicate());
+        out.position(out.position() + 2 * CELLS);
+    }
+
+    /**
+     * Get the number of bytes {@link #write(java.nio.ByteBuffer)} produces
+     *
+     * @return {@link Integer}
+     */
+    public static int getByteSize() {
+        return 2 * CELLS;
+    }
+
+    /**
+     * Get the total number of cells
+     *
+     * @return {@link Integer}
+     */
+    public int getCellCount() {
+        return CELLS;
+    }
+
+}
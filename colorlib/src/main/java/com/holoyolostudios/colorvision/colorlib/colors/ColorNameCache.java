@@ -16,15 +16,45 @@
  */
 package com.holoyolostudios.colorvision.colorlib.colors;
 
-import android.util.Log;
-
-import java.util.ArrayList;
+import com.holoyolostudios.colorvision.colorlib.util.AndroidLogSink;
+import com.holoyolostudios.colorvision.colorlib.util.DerivedTableCache;
+import com.holoyolostudios.colorvision.colorlib.util.LogSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ColorNameCache
  * <p/>
  * Singleton instance for deriving human readable color names from provided RGB values
  * <p/>
+ * The palette and its indexes can be built off the main thread with
+ * {@link #createInstanceAsync(int)}. The instance is available immediately, {@link #isInitialized()}
+ * turns true once it can answer, and {@link #getInitFuture()} completes at the same moment.
+ * <p/>
+ * With {@link #createInstanceAsync(int, java.io.File)} the built in palette is written once to a
+ * {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPaletteFile} and memory mapped on
+ * every later start, which skips building it entry by entry. The quantized lookup table is kept
+ * in a {@link com.holoyolostudios.colorvision.colorlib.util.DerivedTableCache} in the same
+ * directory, keyed by the palette colors, so it is only built when the palette changes.
+ * <p/>
+ * Lookups are lock free and safe from any number of threads. Everything a lookup reads is held in
+ * one immutable {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot} that is
+ * replaced atomically by {@link #setPalette(ColorPalette)}, when the lookup cube is ready, and by
+ * {@link #destroy()}. A lookup reads the snapshot once, so it never mixes two palettes, and lookups
+ * still running when the cache is destroyed finish against the snapshot they started with.
+ * <p/>
  *
  * @author Daniel Velazco
  * @author Martin Brabham
@@ -34,33 +64,198 @@ public class ColorNameCache {
     // Constants
     private static final String LOG_TAG = "ColorNameCache";
 
+    // Lookup modes
+    public static final int LOOKUP_INDEXED = 0;
+    public static final int LOOKUP_QUANTIZED = 1;
+
+    // Memo
+    private static final int MEMO_CAPACITY = 1024;
+
+    // Revision of the built in palette; bump whenever createDefaultPalette() changes so files
+    // written by older builds are replaced
+    private static final int DEFAULT_PALETTE_REVISION = 1;
+
+    // Files
+    private static final String PALETTE_FILE_NAME = "default_palette.cvpl";
+    private static final String TABLE_DIRECTORY = "tables";
+    private static final String CUBE_TABLE = "lookup_cube";
+
     // Instance
-    private static ColorNameCache mInstance = null;
+    private static volatile ColorNameCache mInstance = null;
+
+    // Logging
+    private static volatile LogSink sLogSink = AndroidLogSink.createIfAvailable();
 
     // Members
-    private boolean mInitialized = false;
-    private ArrayList<ColorName> mColorList = new ArrayList<ColorName>();
+    private final int mLookupMode;
+    private final File mPaletteFile;
+    private final DerivedTableCache mTableCache;
+    private final AtomicReference<ColorNameSnapshot> mSnapshot = new AtomicReference<ColorNameSnapshot>();
+    private volatile Future<ColorNameCache> mInitFuture = null;
+    private Thread mCubeBuilder = null;
 
     /**
      * Private constructor
+     *
+     * @param lookupMode {@link #LOOKUP_INDEXED} or {@link #LOOKUP_QUANTIZED}
+     * @param cacheDir   {@link java.io.File} directory for the palette file and derived tables, or null
      */
-    private ColorNameCache() {
+    private ColorNameCache(int lookupMode, File cacheDir) {
+        mLookupMode = lookupMode;
+        mPaletteFile = (cacheDir != null) ? new File(cacheDir, PALETTE_FILE_NAME) : null;
+        mTableCache = (cacheDir != null) ? new DerivedTableCache(new File(cacheDir, TABLE_DIRECTORY)) : null;
     }
 
     /**
      * Create a new instance of {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}.<br/>
-     * Throws an {@link IllegalStateException} if an instance has already been initialized.
+     * Returns the existing instance if one has already been created.
      *
      * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
      */
     public static ColorNameCache createInstance() {
+        return createInstance(LOOKUP_INDEXED);
+    }
+
+    /**
+     * Create a new instance of {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     * with the given lookup mode. With {@link #LOOKUP_QUANTIZED} a
+     * {@link com.holoyolostudios.colorvision.colorlib.colors.ColorLookupCube} is built on a background
+     * thread; until it is ready names come from the indexed search.
+     * <p/>
+     * The instance is initialized before it is returned. If one already exists it is returned
+     * instead, once its initialization has finished.
+     *
+     * @param lookupMode {@link #LOOKUP_INDEXED} or {@link #LOOKUP_QUANTIZED}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     * @throws RuntimeException whatever the initialization threw; no instance is kept then
+     */
+    public static ColorNameCache createInstance(int lookupMode) {
+        ColorNameCache instance;
+        synchronized (ColorNameCache.class) {
+            instance = mInstance;
+            if (instance == null) {
+
+                // Published only once initialized, so no other caller sees it half built
+                instance = new ColorNameCache(lookupMode, null);
+                newInitTask(instance).run();
+                awaitInit(instance);
+                mInstance = instance;
+                return instance;
+            }
+        }
+
+        // An instance created asynchronously may still be initializing
+        return awaitInit(instance);
+    }
+
+    /**
+     * Create a new instance of {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     * and initialize it on a background thread. The instance is returned right away; until
+     * {@link #isInitialized()} turns true callers should show what they can without a name.
+     *
+     * @param lookupMode {@link #LOOKUP_INDEXED} or {@link #LOOKUP_QUANTIZED}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     */
+    public static ColorNameCache createInstanceAsync(int lookupMode) {
+        return createInstanceAsync(lookupMode, null);
+    }
+
+    /**
+     * Create a new instance like {@link #createInstanceAsync(int)}, keeping the built in palette
+     * and the tables derived from it in a directory. The palette is memory mapped from there; if
+     * it is missing or was written by another build, it is built in code and saved for the next
+     * start. Lookup tables are reused the same way whenever the palette colors match.
+     *
+     * @param lookupMode {@link #LOOKUP_INDEXED} or {@link #LOOKUP_QUANTIZED}
+     * @param cacheDir   {@link java.io.File} writable directory, or null to always build
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     */
+    public static synchronized ColorNameCache createInstanceAsync(int lookupMode, File cacheDir) {
         if (mInstance == null) {
-            mInstance = new ColorNameCache();
-            mInstance.init();
+            ColorNameCache cache = new ColorNameCache(lookupMode, cacheDir);
+            FutureTask<ColorNameCache> task = newInitTask(cache);
+            mInstance = cache;
+            ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, LOG_TAG + "-init");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.execute(task);
+
+            // Let the worker exit as soon as the task is done
+            executor.shutdown();
         }
         return mInstance;
     }
 
+    /**
+     * Create the task that initializes an instance. If the initialization throws, the instance
+     * stops being the singleton so the next create starts over.
+     *
+     * @param cache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     * @return {@link java.util.concurrent.FutureTask} completing with the instance
+     */
+    private static FutureTask<ColorNameCache> newInitTask(final ColorNameCache cache) {
+        FutureTask<ColorNameCache> task = new FutureTask<ColorNameCache>(new Callable<ColorNameCache>() {
+            @Override
+            public ColorNameCache call() {
+                boolean done = false;
+                try {
+                    cache.init();
+                    done = true;
+                } finally {
+                    if (!done) {
+                        clearInstance(cache);
+                    }
+                }
+                return cache;
+            }
+        });
+        cache.mInitFuture = task;
+        return task;
+    }
+
+    /**
+     * Wait for an instance's initialization and rethrow anything it threw
+     *
+     * @param cache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}, not initialized if it
+     * was destroyed meanwhile
+     */
+    private static ColorNameCache awaitInit(ColorNameCache cache) {
+        try {
+            cache.mInitFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CancellationException e) {
+
+            // Destroyed before it was initialized
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("ColorNameCache could not be initialized", cause);
+        }
+        return cache;
+    }
+
+    /**
+     * Stop an instance from being the singleton
+     *
+     * @param cache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     */
+    private static synchronized void clearInstance(ColorNameCache cache) {
+        if (mInstance == cache) {
+            mInstance = null;
+        }
+    }
+
     /**
      * Get an existing {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache} instance.
      * Throws an {@link IllegalStateException} if an instance hasn't been created yet.
@@ -68,18 +263,39 @@ public class ColorNameCache {
      * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
      */
     public static ColorNameCache getInstance() {
-        if (mInstance == null) {
+        ColorNameCache instance = mInstance;
+        if (instance == null) {
             throw new IllegalStateException("A ColorNameCache instance must be created first.");
         }
-        return mInstance;
+        return instance;
+    }
+
+    /**
+     * Route the cache's diagnostic messages to a sink. On Android they go to logcat by default,
+     * elsewhere they are dropped unless a sink is set.
+     *
+     * @param sink {@link com.holoyolostudios.colorvision.colorlib.util.LogSink}, or null to drop them
+     */
+    public static void setLogSink(LogSink sink) {
+        sLogSink = sink;
     }
 
     /**
      * Destroy the {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache} instance
      */
     public void destroy() {
-        mInitialized = false;
-        mInstance = null;
+        Future<ColorNameCache> future = mInitFuture;
+        if (future != null) {
+            future.cancel(true);
+        }
+        synchronized (this) {
+            if (mCubeBuilder != null) {
+                mCubeBuilder.interrupt();
+                mCubeBuilder = null;
+            }
+            mSnapshot.set(null);
+        }
+        clearInstance(this);
     }
 
     /**
@@ -89,11 +305,34 @@ public class ColorNameCache {
      * @return {@link boolean}
      */
     public boolean isInitialized() {
-        return mInitialized;
+        return mSnapshot.get() != null;
     }
 
     /**
-     * Get the name of a color by passing the RGB values as the argument.
+     * Get a future that completes with this instance once it has been initialized
+     *
+     * @return {@link java.util.concurrent.Future}
+     */
+    public Future<ColorNameCache> getInitFuture() {
+        return mInitFuture;
+    }
+
+    /**
+     * Check whether the quantized lookup table has been built and is answering lookups
+     *
+     * @return {@link boolean}
+     */
+    public boolean isLookupCubeReady() {
+        ColorNameSnapshot snapshot = mSnapshot.get();
+        return snapshot != null && snapshot.mCube != null;
+    }
+
+    /**
+     * Get the name of a color by passing the RGB values as the argument. The closest color is
+     * found through a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorKdTree}, so the
+     * cost grows with the logarithm of the palette size. In {@link #LOOKUP_QUANTIZED} mode most
+     * colors are answered by a single array read once the lookup table is ready. Colors that still
+     * need a search go through a small memo first, so a steady preview skips the search entirely.
      *
      * @param r {@link int}
      * @param g {@link int}
@@ -101,529 +340,642 @@ public class ColorNameCache {
      * @return {@link String}
      */
     public String getColorName(int r, int g, int b) {
-        if (!mInitialized) {
-            throw new IllegalStateException("This instance has not been initialized yet.");
-        }
+        ColorNameSnapshot snapshot = getSnapshot();
+        return snapshot.getDisplayName(snapshot.getColorIndex(r, g, b));
+    }
 
-        ColorName closestMatch = null;
-        double minMSE = Double.MAX_VALUE;
-        double mse;
-        for (ColorName c : mColorList) {
-            mse = c.computeMSE(r, g, b);
-            if (mse < minMSE) {
-                minMSE = mse;
-                closestMatch = c;
-            }
+    /**
+     * Get the palette index of the closest color, see {@link #getColorName(int, int, int)}. The index
+     * refers to the palette current at the time of the call.
+     *
+     * @param r {@link int}
+     * @param g {@link int}
+     * @param b {@link int}
+     * @return {@link int} palette index, or -1 if the palette is empty
+     */
+    public int getColorIndex(int r, int g, int b) {
+        return getSnapshot().getColorIndex(r, g, b);
+    }
+
+    /**
+     * Get the display name of an entry of the current palette
+     *
+     * @param index {@link int} palette index
+     * @return {@link String}, or null for a negative index
+     */
+    public String getDisplayName(int index) {
+        return getSnapshot().getDisplayName(index);
+    }
+
+    /**
+     * Get the palette this cache names colors from
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     */
+    public ColorPalette getPalette() {
+        return getSnapshot().mPalette;
+    }
+
+    /**
+     * Replace the palette. The new palette and its tree are built on the calling thread and then
+     * published in one step; lookups in flight finish against the old palette. In
+     * {@link #LOOKUP_QUANTIZED} mode a new lookup cube is started for the new palette.
+     *
+     * @param palette {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     */
+    public synchronized void setPalette(ColorPalette palette) {
+        ColorNameSnapshot snapshot = new ColorNameSnapshot(palette, palette.createTree(), null,
+                new ColorNameMemo(MEMO_CAPACITY));
+        if (mCubeBuilder != null) {
+            mCubeBuilder.interrupt();
+            mCubeBuilder = null;
+        }
+        mSnapshot.set(snapshot);
+        if (mLookupMode == LOOKUP_QUANTIZED) {
+            startCubeBuilder(snapshot);
         }
+    }
 
-        if (closestMatch != null) {
-            return closestMatch.getName() + " (" + closestMatch.getShade() + ")";
-        } else {
-            return null;
+    /**
+     * Replace the palette with one read from a stream, see
+     * {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPaletteLoader} for the format.
+     * Palettes of tens of thousands of entries are fine: the tree keeps searches logarithmic and
+     * the lookup cube covers palettes of up to {@link ColorLookupCube#MAX_PALETTE_SIZE} entries.
+     * Call this off the UI thread; the stream is closed when done.
+     *
+     * @param in {@link java.io.InputStream}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette} the new palette
+     * @throws IOException if the stream cannot be read or is malformed, the palette is unchanged
+     */
+    public ColorPalette loadPalette(InputStream in) throws IOException {
+        ColorPalette palette = ColorPaletteLoader.load(in);
+        if (palette.size() == 0) {
+            throw new IOException("Palette is empty");
         }
+        setPalette(palette);
+        return palette;
     }
 
     /**
-     * Initialize this ColorNameCache. If it was already initialized, it will simply return false;
+     * Replace the palette with one mapped from a
+     * {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPaletteFile}. Names are decoded
+     * from the file as they are first needed.
      *
-     * @return {@link boolean}
+     * @param file {@link java.io.File}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette} the new palette
+     * @throws IOException if the file cannot be mapped or is malformed, the palette is unchanged
      */
-    public boolean init() {
-        if (mInitialized) {
-            Log.d(LOG_TAG, "The ColorNameCache has already been initialized");
-            return false;
+    public ColorPalette loadPalette(File file) throws IOException {
+        ColorPalette palette = ColorPaletteFile.map(file, ColorPaletteFile.ANY_REVISION);
+        if (palette.size() == 0) {
+            throw new IOException("Palette is empty");
         }
+        setPalette(palette);
+        return palette;
+    }
 
-        mColorList.add(new ColorName("white", "white", 0xff, 0xff, 0xff));
-        mColorList.add(new ColorName("white", "white smoke", 0xf5, 0xf5, 0xf5));
-        mColorList.add(new ColorName("white", "ghost white", 0xf8, 0xf8, 0xff));
-        mColorList.add(new ColorName("white", "baby powder", 0xfe, 0xfe, 0xfa));
-        mColorList.add(new ColorName("white", "snow", 0xff, 0xfa, 0xfa));
-        mColorList.add(new ColorName("white", "ivory", 0xff, 0xff, 0xf0));
-        mColorList.add(new ColorName("white", "floral white", 0xff, 0xfa, 0xf0));
-        mColorList.add(new ColorName("white", "seashell", 0xff, 0xf5, 0xee));
-        mColorList.add(new ColorName("white", "cornsilk", 0xff, 0xf8, 0xdc));
-        mColorList.add(new ColorName("white", "old lace", 0xfd, 0xf5, 0xe6));
-        mColorList.add(new ColorName("white", "cream", 0xff, 0xfd, 0xd0));
-        mColorList.add(new ColorName("white", "beige", 0xf5, 0xf5, 0xdc));
-        mColorList.add(new ColorName("white", "linen", 0xfa, 0xf0, 0xe6));
-        mColorList.add(new ColorName("white", "antique white", 0xfa, 0xeb, 0xd7));
-        mColorList.add(new ColorName("white", "champagne", 0xf7, 0xe7, 0xc3));
-        mColorList.add(new ColorName("white", "eggshell", 0xf0, 0xea, 0xd6));
-        mColorList.add(new ColorName("white", "dutch white", 0xef, 0xdf, 0xbb));
-        mColorList.add(new ColorName("white", "bone", 0xe3, 0xda, 0xc9));
-        mColorList.add(new ColorName("white", "vanilla", 0xf3, 0xe5, 0xab));
-        mColorList.add(new ColorName("white", "flax", 0xee, 0xdc, 0x82));
-        mColorList.add(new ColorName("white", "navajo white", 0xff, 0xde, 0xad));
-        mColorList.add(new ColorName("white", "ecru", 0xc2, 0xb2, 0x80));
-        mColorList.add(new ColorName("black", "black", 0x00, 0x00, 0x00));
-        mColorList.add(new ColorName("black", "midnight blue", 0x19, 0x19, 0x70));
-        mColorList.add(new ColorName("black", "ebony", 0x55, 0x5d, 0x50));
-        mColorList.add(new ColorName("black", "taupe", 0x48, 0x3c, 0x32));
-        mColorList.add(new ColorName("black", "charcoal", 0x36, 0x45, 0x4f));
-        mColorList.add(new ColorName("black", "outer space", 0x41, 0x4a, 0x4c));
-        mColorList.add(new ColorName("black", "cafe noir", 0x4b, 0x36, 0x21));
-        mColorList.add(new ColorName("black", "black bean", 0x3d, 0x0c, 0x02));
-        mColorList.add(new ColorName("black", "black olive", 0x3b, 0x3c, 0x36));
-        mColorList.add(new ColorName("black", "onyx", 0x35, 0x38, 0x39));
-        mColorList.add(new ColorName("black", "phthalo green", 0x12, 0x35, 0x24));
-        mColorList.add(new ColorName("black", "jet", 0x34, 0x34, 0x34));
-        mColorList.add(new ColorName("black", "black leather jacket", 0x25, 0x35, 0x29));
-        mColorList.add(new ColorName("black", "charleston green", 0x23, 0x2b, 0x2b));
-        mColorList.add(new ColorName("black", "eerie black", 0x1b, 0x1b, 0x1b));
-        mColorList.add(new ColorName("black", "licorice", 0x1a, 0x11, 0x10));
-        mColorList.add(new ColorName("gray", "dark slate gray", 0x2f, 0x4f, 0x4f));
-        mColorList.add(new ColorName("gray", "light slate gray", 0x77, 0x88, 0x99));
-        mColorList.add(new ColorName("achromatic gray", "gainsboro", 0xdc, 0xdc, 0xdc));
-        mColorList.add(new ColorName("achromatic gray", "light gray", 0xd3, 0xd3, 0xd3));
-        mColorList.add(new ColorName("achromatic gray", "silver", 0xc0, 0xc0, 0xc0));
-        mColorList.add(new ColorName("achromatic gray", "medium gray", 0xbe, 0xbe, 0xbe));
-        mColorList.add(new ColorName("achromatic gray", "dark medium gray", 0xa9, 0xa9, 0xa9));
-        mColorList.add(new ColorName("achromatic gray", "spanish gray", 0x98, 0x98, 0x98));
-        mColorList.add(new ColorName("achromatic gray", "gray", 0x80, 0x80, 0x80));
-        mColorList.add(new ColorName("achromatic gray", "dim gray", 0x69, 0x69, 0x69));
-        mColorList.add(new ColorName("achromatic gray", "davy's gray", 0x55, 0x55, 0x55));
-        mColorList.add(new ColorName("off gray", "platinum", 0xb2, 0xbe, 0xb5));
-        mColorList.add(new ColorName("off gray", "battleship gray", 0x84, 0x84, 0x82));
-        mColorList.add(new ColorName("cool gray", "cool gray", 0x8c, 0x92, 0xac));
-        mColorList.add(new ColorName("cool gray", "cadet gray", 0x91, 0xa3, 0xb0));
-        mColorList.add(new ColorName("cool gray", "blue-gray", 0x66, 0x99, 0xcc));
-        mColorList.add(new ColorName("cool gray", "glaucos", 0x60, 0x82, 0xb6));
-        mColorList.add(new ColorName("cool gray", "slate gray", 0x70, 0x80, 0x90));
-        mColorList.add(new ColorName("warm gray", "puce", 0x72, 0x2f, 0x37));
-        mColorList.add(new ColorName("warm gray", "rose quartz", 0xaa, 0x98, 0xa9));
-        mColorList.add(new ColorName("warm gray", "cinereous", 0x98, 0x81, 0x7b));
-        mColorList.add(new ColorName("warm gray", "rocket metallic", 0x8a, 0x7f, 0x8d));
-        mColorList.add(new ColorName("pink", "coral", 0xff, 0x7f, 0x50));
-        mColorList.add(new ColorName("pink", "dark magenta", 0x8b, 0x00, 0x8b));
-        mColorList.add(new ColorName("pink", "dark orchid", 0x99, 0x32, 0xcc));
-        mColorList.add(new ColorName("pink", "dark salmon", 0xe9, 0x96, 0x7a));
-        mColorList.add(new ColorName("pink", "deep pink", 0xff, 0x14, 0x93));
-        mColorList.add(new ColorName("pink", "fuchsia", 0xff, 0x00, 0xff));
-        mColorList.add(new ColorName("pink", "light coral", 0xf0, 0x80, 0x80));
-        mColorList.add(new ColorName("pink", "light pink", 0xff, 0xb6, 0xc1));
-        mColorList.add(new ColorName("pink", "light salmon", 0xff, 0xa0, 0x7a));
-        mColorList.add(new ColorName("pink", "medium orchid", 0xba, 0x55, 0xd3));
-        mColorList.add(new ColorName("pink", "orchid", 0xda, 0x70, 0xd6));
-        mColorList.add(new ColorName("pink", "peach puff", 0xff, 0xda, 0xb9));
-        mColorList.add(new ColorName("pink", "salmon", 0xfa, 0x80, 0x72));
-        mColorList.add(new ColorName("pink", "hot magenta", 0xff, 0x1d, 0xce));
-        mColorList.add(new ColorName("pink", "pink", 0xff, 0xc0, 0xcb));
-        mColorList.add(new ColorName("pink", "hot pink", 0xff, 0x69, 0xb4));
-        mColorList.add(new ColorName("pink", "deep pink", 0xff, 0x69, 0xb4));
-        mColorList.add(new ColorName("pink", "champagne pink", 0xf1, 0xdd, 0xcf));
-        mColorList.add(new ColorName("pink", "pink lace", 0xff, 0xdd, 0xf4));
-        mColorList.add(new ColorName("pink", "piggy pink", 0xfd, 0xdd, 0xe6));
-        mColorList.add(new ColorName("pink", "pale pink", 0xf9, 0xcc, 0xca));
-        mColorList.add(new ColorName("pink", "baby pink", 0xf3, 0xc2, 0xc2));
-        mColorList.add(new ColorName("pink", "spanish pink", 0xf7, 0xbf, 0xbe));
-        mColorList.add(new ColorName("pink", "cameo pink", 0xef, 0xbb, 0xcc));
-        mColorList.add(new ColorName("pink", "orchid pink", 0xf2, 0xbd, 0xcd));
-        mColorList.add(new ColorName("pink", "cherry blossom pink", 0xff, 0xb7, 0xc5));
-        mColorList.add(new ColorName("pink", "light hot pink", 0xff, 0xb3, 0xde));
-        mColorList.add(new ColorName("pink", "lavendar pink", 0xfb, 0xae, 0xd2));
-        mColorList.add(new ColorName("pink", "cotton candy", 0xff, 0xbc, 0xd9));
-        mColorList.add(new ColorName("pink", "carnation pink", 0xff, 0xa6, 0xc9));
-        mColorList.add(new ColorName("pink", "baker-miller pink", 0xff, 0x91, 0xaf));
-        mColorList.add(new ColorName("pink", "tickle me pink", 0xfc, 0x89, 0xac));
-        mColorList.add(new ColorName("pink", "amaranth pink", 0xf1, 0x9c, 0xbb));
-        mColorList.add(new ColorName("pink", "charm pink", 0xe6, 0x8f, 0xac));
-        mColorList.add(new ColorName("pink", "china pink", 0xde, 0x6f, 0xa1));
-        mColorList.add(new ColorName("pink", "tango pink", 0xe4, 0x71, 0x7a));
-        mColorList.add(new ColorName("pink", "congo pink", 0xf8, 0x83, 0x79));
-        mColorList.add(new ColorName("pink", "pastel pink", 0xde, 0xa5, 0xa4));
-        mColorList.add(new ColorName("pink", "new york pink", 0xd7, 0x83, 0x7f));
-        mColorList.add(new ColorName("pink", "solid pink", 0x89, 0x38, 0x43));
-        mColorList.add(new ColorName("pink", "silver pink", 0xc4, 0xae, 0xad));
-        mColorList.add(new ColorName("pink", "queen pink", 0xe8, 0xcc, 0xd7));
-        mColorList.add(new ColorName("pink", "pink lavender", 0xd8, 0xb2, 0xd1));
-        mColorList.add(new ColorName("pink", "mountbatten pink", 0x99, 0x7a, 0x8d));
-        mColorList.add(new ColorName("pink", "pink (pantone)", 0xd7, 0x48, 0x94));
-        mColorList.add(new ColorName("pink", "mexican pink", 0xe4, 0x00, 0x7c));
-        mColorList.add(new ColorName("pink", "barbie pink", 0xe0, 0x21, 0x8a));
-        mColorList.add(new ColorName("pink", "fandango pink", 0xde, 0x52, 0x85));
-        mColorList.add(new ColorName("pink", "paradise pink", 0xe6, 0x3e, 0x62));
-        mColorList.add(new ColorName("pink", "brink pink", 0xfb, 0x60, 0x7f));
-        mColorList.add(new ColorName("pink", "french pink", 0xfd, 0x6c, 0x9e));
-        mColorList.add(new ColorName("pink", "bright pink", 0xff, 0x00, 0x7f));
-        mColorList.add(new ColorName("pink", "persian pink", 0xf7, 0x7f, 0xbe));
-        mColorList.add(new ColorName("pink", "light deep pink", 0xff, 0x5c, 0xcd));
-        mColorList.add(new ColorName("pink", "ultra pink", 0xff, 0x6f, 0xff));
-        mColorList.add(new ColorName("pink", "shocking pink", 0xfc, 0x0f, 0xc0));
-        mColorList.add(new ColorName("pink", "super pink", 0xcf, 0x6b, 0xa9));
-        mColorList.add(new ColorName("pink", "steel pink", 0xcc, 0x33, 0xcc));
-        mColorList.add(new ColorName("red", "indian red", 0xcd, 0x5c, 0x5c));
-        mColorList.add(new ColorName("red", "indigo", 0x4b, 0x00, 0x82));
-        mColorList.add(new ColorName("red", "misty rose", 0xff, 0xe4, 0xe1));
-        mColorList.add(new ColorName("red", "orange red", 0xff, 0x45, 0x00));
-        mColorList.add(new ColorName("red", "red", 0xff, 0x00, 0x00));
-        mColorList.add(new ColorName("red", "imperial red", 0xed, 0x29, 0x39));
-        mColorList.add(new ColorName("red", "spanish red", 0xe6, 0x00, 0x26));
-        mColorList.add(new ColorName("red", "desire", 0xea, 0x3c, 0x53));
-        mColorList.add(new ColorName("red", "ruby", 0xe6, 0x20, 0x20));
-        mColorList.add(new ColorName("red", "crimson", 0xdc, 0x14, 0x3c));
-        mColorList.add(new ColorName("red", "rusty red", 0xda, 0x2c, 0x43));
-        mColorList.add(new ColorName("red", "cardinal red", 0xc4, 0x1e, 0x3a));
-        mColorList.add(new ColorName("red", "cornell red", 0xb3, 0x1b, 0x1b));
-        mColorList.add(new ColorName("red", "fire brick", 0xb2, 0x22, 0x22));
-        mColorList.add(new ColorName("red", "redwood", 0xa4, 0x5a, 0x52));
-        mColorList.add(new ColorName("red", "OU crimson red", 0x99, 0x00, 0x00));
-        mColorList.add(new ColorName("red", "dark red", 0x8b, 0x00, 0x00));
-        mColorList.add(new ColorName("red", "maroon", 0x80, 0x00, 0x00));
-        mColorList.add(new ColorName("red", "barn red", 0x7c, 0x0a, 0x02));
-        mColorList.add(new ColorName("brown", "wheat", 0xf5, 0xde, 0xb3));
-        mColorList.add(new ColorName("brown", "bisque", 0xff, 0xe4, 0xc4));
-        mColorList.add(new ColorName("brown", "blanched almond", 0xff, 0xeb, 0xcd));
-        mColorList.add(new ColorName("brown", "brown", 0xa5, 0x2a, 0x2a));
-        mColorList.add(new ColorName("brown", "burly wood", 0xde, 0xb8, 0x87));
-        mColorList.add(new ColorName("brown", "chocolate", 0xd2, 0x69, 0x1e));
-        mColorList.add(new ColorName("brown", "dark khaki", 0xbd, 0xb7, 0x6b));
-        mColorList.add(new ColorName("brown", "khaki", 0xf0, 0xe6, 0x8c));
-        mColorList.add(new ColorName("brown", "moccasin", 0xff, 0xe4, 0xb5));
-        mColorList.add(new ColorName("brown", "olive drab", 0x6b, 0x8e, 0x23));
-        mColorList.add(new ColorName("brown", "saddle brown", 0x8b, 0x45, 0x13));
-        mColorList.add(new ColorName("brown", "sienna", 0xa0, 0x52, 0x2d));
-        mColorList.add(new ColorName("brown", "brown", 0x96, 0x4b, 0x00));
-        mColorList.add(new ColorName("brown", "beaver", 0x9f, 0x81, 0x70));
-        mColorList.add(new ColorName("brown", "beige", 0xf5, 0xf5, 0xdc));
-        mColorList.add(new ColorName("brown", "buff", 0xf0, 0xdc, 0x82));
-        mColorList.add(new ColorName("brown", "burnt umber", 0x8a, 0x33, 0x24));
-        mColorList.add(new ColorName("brown", "chestnut", 0x95, 0x45, 0x35));
-        mColorList.add(new ColorName("brown", "desert sand", 0xed, 0xc9, 0xaf));
-        mColorList.add(new ColorName("brown", "khaki", 0xc3, 0xb0, 0x91));
-        mColorList.add(new ColorName("brown", "kobicha", 0x6b, 0x44, 0x23));
-        mColorList.add(new ColorName("brown", "peru", 0xcd, 0x85, 0x3f));
-        mColorList.add(new ColorName("brown", "raw umber", 0x82, 0x66, 0x44));
-        mColorList.add(new ColorName("brown", "rosy brown", 0xbc, 0x8f, 0x8f));
-        mColorList.add(new ColorName("brown", "russet", 0x80, 0x46, 0x1b));
-        mColorList.add(new ColorName("brown", "sandy brown", 0xf4, 0xa4, 0x60));
-        mColorList.add(new ColorName("brown", "smokey topaz", 0x83, 0x2a, 0x0d));
-        mColorList.add(new ColorName("brown", "tan", 0xd2, 0xb4, 0x8c));
-        mColorList.add(new ColorName("brown", "taupe", 0x48, 0x3c, 0x32));
-        mColorList.add(new ColorName("brown", "wood brown", 0xc1, 0x9a, 0x6b));
-        mColorList.add(new ColorName("orange", "traditional orange", 0xff, 0x7f, 0x00));
-        mColorList.add(new ColorName("orange", "orange", 0xff, 0xa5, 0x00));
-        mColorList.add(new ColorName("orange", "dark orange", 0xff, 0x8c, 0x00));
-        mColorList.add(new ColorName("orange", "papaya whip", 0xff, 0xef, 0xd5));
-        mColorList.add(new ColorName("orange", "peach", 0xff, 0xe5, 0xb4));
-        mColorList.add(new ColorName("orange", "apricot", 0xfb, 0xce, 0xb1));
-        mColorList.add(new ColorName("orange", "melon", 0xfd, 0xbc, 0xb4));
-        mColorList.add(new ColorName("orange", "atomic tangerine", 0xff, 0x99, 0x66));
-        mColorList.add(new ColorName("orange", "tea rose", 0xf8, 0x83, 0x79));
-        mColorList.add(new ColorName("orange", "carrot orange", 0xed, 0x91, 0x21));
-        mColorList.add(new ColorName("orange", "orange peel", 0xff, 0x9f, 0x00));
-        mColorList.add(new ColorName("orange", "princeton orange", 0xf5, 0x80, 0x25));
-        mColorList.add(new ColorName("orange", "spanish orange", 0xe8, 0x61, 0x00));
-        mColorList.add(new ColorName("orange", "pumpkin", 0xff, 0x75, 0x18));
-        mColorList.add(new ColorName("orange", "giants orange", 0xfe, 0x5a, 0x1d));
-        mColorList.add(new ColorName("orange", "vermillion", 0xe3, 0x42, 0x34));
-        mColorList.add(new ColorName("orange", "tomato", 0xff, 0x63, 0x47));
-        mColorList.add(new ColorName("orange", "bittersweet", 0xfe, 0x6f, 0x5e));
-        mColorList.add(new ColorName("orange", "persimmon", 0xec, 0x58, 0x00));
-        mColorList.add(new ColorName("orange", "persian orange", 0xd9, 0x90, 0x58));
-        mColorList.add(new ColorName("orange", "alloy orange", 0xc4, 0x63, 0x10));
-        mColorList.add(new ColorName("orange", "burnt orange", 0xcc, 0x55, 0x00));
-        mColorList.add(new ColorName("orange", "bittersweet shimmer", 0xbf, 0x4f, 0x51));
-        mColorList.add(new ColorName("yellow", "dark golden rod", 0xb8, 0x86, 0x0b));
-        mColorList.add(new ColorName("yellow", "lemon chiffon", 0xff, 0xfa, 0xcd));
-        mColorList.add(new ColorName("yellow", "light golden rod yellow", 0xfa, 0xfa, 0xd2));
-        mColorList.add(new ColorName("yellow", "light yellow", 0xff, 0xff, 0xe0));
-        mColorList.add(new ColorName("yellow", "pale golden rod", 0xee, 0xe8, 0xaa));
-        mColorList.add(new ColorName("yellow", "yellow", 0xff, 0xff, 0x00));
-        mColorList.add(new ColorName("yellow", "light yellow", 0xff, 0xff, 0xed));
-        mColorList.add(new ColorName("yellow", "cream", 0xff, 0xff, 0xcc));
-        mColorList.add(new ColorName("yellow", "unmellow yellow", 0xff, 0xff, 0x66));
-        mColorList.add(new ColorName("yellow", "lemon", 0xff, 0xac, 0xd));
-        mColorList.add(new ColorName("yellow", "mellow yellow", 0xf8, 0xde, 0x7e));
-        mColorList.add(new ColorName("yellow", "royal yellow", 0xfa, 0xda, 0x5e));
-        mColorList.add(new ColorName("yellow", "gold", 0xff, 0xd7, 0x00));
-        mColorList.add(new ColorName("yellow", "cyber yellow", 0xff, 0xd3, 0x00));
-        mColorList.add(new ColorName("yellow", "safety yellow", 0xed, 0xd2, 0x02));
-        mColorList.add(new ColorName("yellow", "goldenrod", 0xda, 0xa5, 0x20));
-        mColorList.add(new ColorName("yellow", "olive", 0x80, 0x80, 0x00));
-        mColorList.add(new ColorName("green", "mint cream", 0xf5, 0xff, 0xfa));
-        mColorList.add(new ColorName("green", "chartreuse", 0x7f, 0xff, 0x00));
-        mColorList.add(new ColorName("green", "dark olive green", 0x55, 0x6b, 0x2f));
-        mColorList.add(new ColorName("green", "dark sea green", 0x8f, 0xbc, 0x8f));
-        mColorList.add(new ColorName("green", "dark turquoise", 0x00, 0xce, 0xd1));
-        mColorList.add(new ColorName("green", "honey dew", 0xf0, 0xff, 0xf0));
-        mColorList.add(new ColorName("green", "lawn green", 0x7c, 0xfc, 0x00));
-        mColorList.add(new ColorName("green", "lime green", 0x32, 0xcd, 0x32));
-        mColorList.add(new ColorName("green", "lime", 0x00, 0xff, 0x00));
-        mColorList.add(new ColorName("green", "medium sea green", 0x3c, 0xb3, 0x71));
-        mColorList.add(new ColorName("green", "medium spring green", 0x00, 0xfa, 0x9a));
-        mColorList.add(new ColorName("green", "medium turquoise", 0x48, 0xd1, 0xcc));
-        mColorList.add(new ColorName("green", "pale turquoise", 0xaf, 0xee, 0xee));
-        mColorList.add(new ColorName("green", "spring green", 0x00, 0xff, 0x7f));
-        mColorList.add(new ColorName("green", "yellow green", 0x9a, 0xcd, 0x32));
-        mColorList.add(new ColorName("green", "artichoke", 0x8f, 0x97, 0x79));
-        mColorList.add(new ColorName("green", "asparagus", 0x87, 0xa9, 0x6b));
-        mColorList.add(new ColorName("green", "avocado", 0x56, 0x82, 0x03));
-        mColorList.add(new ColorName("green", "fern green", 0x71, 0xbc, 0x78));
-        mColorList.add(new ColorName("green", "forest green", 0x22, 0x8b, 0x22));
-        mColorList.add(new ColorName("green", "hooker's green", 0x49, 0x79, 0x6b));
-        mColorList.add(new ColorName("green", "jungle green", 0x29, 0xab, 0x87));
-        mColorList.add(new ColorName("green", "laurel green", 0xa9, 0xba, 0x9d));
-        mColorList.add(new ColorName("green", "light green", 0x90, 0xee, 0x90));
-        mColorList.add(new ColorName("green", "mantis", 0x74, 0xc3, 0x65));
-        mColorList.add(new ColorName("green", "moss green", 0x8a, 0x9a, 0x58));
-        mColorList.add(new ColorName("green", "myrtle green", 0x31, 0x78, 0x73));
-        mColorList.add(new ColorName("green", "mint green", 0x98, 0xfb, 0x98));
-        mColorList.add(new ColorName("green", "pine green", 0x01, 0x79, 0x6f));
-        mColorList.add(new ColorName("green", "shamrock green", 0x00, 0x9e, 0x60));
-        mColorList.add(new ColorName("green", "teal", 0x00, 0x80, 0x80));
-        mColorList.add(new ColorName("green", "dark green", 0x00, 0x64, 0x00));
-        mColorList.add(new ColorName("green", "bright green", 0x66, 0xff, 0x00));
-        mColorList.add(new ColorName("green", "brunswick green", 0x1b, 0x4d, 0x3e));
-        mColorList.add(new ColorName("green", "cal poly pomona green", 0x1e, 0x4d, 0x2b));
-        mColorList.add(new ColorName("green", "dark pastel green", 0x03, 0xc0, 0x3c));
-        mColorList.add(new ColorName("green", "dartmouth green", 0x00, 0x70, 0x3c));
-        mColorList.add(new ColorName("green", "emerald", 0x50, 0xc8, 0x78));
-        mColorList.add(new ColorName("green", "feldgrau", 0x4d, 0x5d, 0x53));
-        mColorList.add(new ColorName("green", "go green", 0x00, 0xab, 0x66));
-        mColorList.add(new ColorName("green", "yellow-green", 0xad, 0xff, 0x2f));
-        mColorList.add(new ColorName("green", "harlequin", 0x3f, 0xff, 0x00));
-        mColorList.add(new ColorName("green", "hunter green", 0x35, 0x5e, 0x3b));
-        mColorList.add(new ColorName("green", "india green", 0x13, 0x88, 0x08));
-        mColorList.add(new ColorName("green", "islamic green", 0x00, 0x99, 0x00));
-        mColorList.add(new ColorName("green", "jade", 0x00, 0xa8, 0x6b));
-        mColorList.add(new ColorName("green", "kelly green", 0x4c, 0xbb, 0x17));
-        mColorList.add(new ColorName("green", "malachite", 0xbd, 0xa5, 0x1));
-        mColorList.add(new ColorName("green", "msu green", 0x18, 0x45, 0x3b));
-        mColorList.add(new ColorName("green", "north texas green", 0x00, 0x27, 0x79));
-        mColorList.add(new ColorName("green", "office green", 0x00, 0x80, 0x00));
-        mColorList.add(new ColorName("green", "pakistan green", 0x00, 0x66, 0x00));
-        mColorList.add(new ColorName("green", "paris green", 0x50, 0xc8, 0x78));
-        mColorList.add(new ColorName("green", "persian green", 0x00, 0xa6, 0x93));
-        mColorList.add(new ColorName("green", "rifle green", 0x44, 0x4c, 0x38));
-        mColorList.add(new ColorName("green", "russian green", 0x67, 0x92, 0x67));
-        mColorList.add(new ColorName("green", "sacramento state green", 0x00, 0x56, 0x3f));
-        mColorList.add(new ColorName("green", "sea green", 0x2e, 0x8b, 0x57));
-        mColorList.add(new ColorName("green", "spanish green", 0x00, 0x91, 0x50));
-        mColorList.add(new ColorName("cyan", "cyan", 0x00, 0xff, 0xff));
-        mColorList.add(new ColorName("cyan", "light cyan", 0xe0, 0xff, 0xff));
-        mColorList.add(new ColorName("cyan", "aero blue", 0xc9, 0xff, 0xe5));
-        mColorList.add(new ColorName("cyan", "celeste", 0xb2, 0xff, 0xff));
-        mColorList.add(new ColorName("cyan", "electric blue", 0x7d, 0xf9, 0xff));
-        mColorList.add(new ColorName("cyan", "turquoise", 0x40, 0xe0, 0xd0));
-        mColorList.add(new ColorName("cyan", "robin egg blue", 0x00, 0xcc, 0xcc));
-        mColorList.add(new ColorName("cyan", "light sea green", 0x20, 0xb2, 0xaa));
-        mColorList.add(new ColorName("cyan", "blue-green", 0x0d, 0x98, 0xba));
-        mColorList.add(new ColorName("cyan", "keppel", 0x3a, 0xb0, 0x9e));
-        mColorList.add(new ColorName("cyan", "cerulean", 0x00, 0x7b, 0xa7));
-        mColorList.add(new ColorName("cyan", "dark cyan", 0x00, 0x8b, 0x8b));
-        mColorList.add(new ColorName("cyan", "midnight green", 0x00, 0x49, 0x53));
-        mColorList.add(new ColorName("cyan", "charleston green", 0x23, 0x2b, 0x2b));
-        mColorList.add(new ColorName("cyan", "aquamarine", 0x7f, 0xff, 0xd4));
-        mColorList.add(new ColorName("cyan", "medium aqua marine", 0x66, 0xcd, 0xaa));
-        mColorList.add(new ColorName("blue", "alice blue", 0xf0, 0xf8, 0xff));
-        mColorList.add(new ColorName("blue", "azure", 0xf0, 0xff, 0xff));
-        mColorList.add(new ColorName("blue", "blue violet", 0x8a, 0x2b, 0xe2));
-        mColorList.add(new ColorName("blue", "cadet blue", 0x5f, 0x9e, 0xa0));
-        mColorList.add(new ColorName("blue", "cornflower blue", 0x64, 0x95, 0xed));
-        mColorList.add(new ColorName("blue", "dark slate blue", 0x48, 0x3d, 0x8b));
-        mColorList.add(new ColorName("blue", "deep sky blue", 0x00, 0xbf, 0xff));
-        mColorList.add(new ColorName("blue", "dodger blue", 0x1e, 0x90, 0xff));
-        mColorList.add(new ColorName("blue", "light sky blue", 0x87, 0xce, 0xfa));
-        mColorList.add(new ColorName("blue", "light steel blue", 0xb0, 0xc4, 0xde));
-        mColorList.add(new ColorName("blue", "medium slate blue", 0x7b, 0x68, 0xee));
-        mColorList.add(new ColorName("blue", "royal blue", 0x41, 0x69, 0xe1));
-        mColorList.add(new ColorName("blue", "sky blue", 0x87, 0xce, 0xeb));
-        mColorList.add(new ColorName("blue", "slate blue", 0x6a, 0x5a, 0xcd));
-        mColorList.add(new ColorName("blue", "steel blue", 0x46, 0x82, 0xb4));
-        mColorList.add(new ColorName("blue", "blue", 0x00, 0x00, 0xff));
-        mColorList.add(new ColorName("blue", "periwinkle", 0xcc, 0xcc, 0xff));
-        mColorList.add(new ColorName("blue", "powder blue", 0xb0, 0xe0, 0xe6));
-        mColorList.add(new ColorName("blue", "light blue", 0xad, 0xd8, 0xe6));
-        mColorList.add(new ColorName("blue", "baby blue", 0x89, 0xcf, 0xf0));
-        mColorList.add(new ColorName("blue", "crayola blue", 0x1f, 0x75, 0xfe));
-        mColorList.add(new ColorName("blue", "medium blue", 0x00, 0x00, 0xcd));
-        mColorList.add(new ColorName("blue", "spanish blue", 0x00, 0x70, 0xbb));
-        mColorList.add(new ColorName("blue", "liberty", 0x54, 0x5a, 0xa7));
-        mColorList.add(new ColorName("blue", "egyption blue", 0x10, 0x34, 0xa6));
-        mColorList.add(new ColorName("blue", "dark blue", 0x00, 0x00, 0x8b));
-        mColorList.add(new ColorName("blue", "electric ultramarine", 0x3f, 0x00, 0xff));
-        mColorList.add(new ColorName("blue", "resolution blue", 0x00, 0x23, 0x87));
-        mColorList.add(new ColorName("blue", "navy blue", 0x00, 0x00, 0x80));
-        mColorList.add(new ColorName("blue", "catalina blue", 0x06, 0x2a, 0x78));
-        mColorList.add(new ColorName("blue", "midnight blue", 0x19, 0x19, 0x70));
-        mColorList.add(new ColorName("blue", "independence", 0x4c, 0x51, 0x6d));
-        mColorList.add(new ColorName("blue", "space cadet", 0x1d, 0x29, 0x51));
-        mColorList.add(new ColorName("purple", "purple", 0x80, 0x00, 0x80));
-        mColorList.add(new ColorName("purple", "tyrian purple", 0x66, 0x02, 0x3c));
-        mColorList.add(new ColorName("purple", "royal purple", 0x78, 0x51, 0xa9));
-        mColorList.add(new ColorName("purple", "red-violet", 0xc7, 0x15, 0x85));
-        mColorList.add(new ColorName("purple", "thistle", 0xd8, 0xbf, 0xd8));
-        mColorList.add(new ColorName("purple", "mauve", 0xe0, 0xb0, 0xff));
-        mColorList.add(new ColorName("purple", "orchid", 0xda, 0x70, 0xd6));
-        mColorList.add(new ColorName("purple", "heliotrope", 0xdf, 0x73, 0xff));
-        mColorList.add(new ColorName("purple", "phlox", 0xdf, 0x00, 0xff));
-        mColorList.add(new ColorName("purple", "purple pizzazz", 0xfe, 0x4e, 0xda));
-        mColorList.add(new ColorName("purple", "liseran purple", 0xde, 0x6f, 0xa1));
-        mColorList.add(new ColorName("purple", "mulberry", 0xc5, 0x4b, 0x8c));
-        mColorList.add(new ColorName("purple", "pearly purple", 0xb7, 0x68, 0xa2));
-        mColorList.add(new ColorName("purple", "purpureus", 0x9a, 0x4e, 0xae));
-        mColorList.add(new ColorName("purple", "ksu purple", 0x51, 0x28, 0x88));
-        mColorList.add(new ColorName("purple", "pomp and power", 0x86, 0x60, 0x8e));
-        mColorList.add(new ColorName("purple", "mardi gras", 0x88, 0x00, 0x95));
-        mColorList.add(new ColorName("purple", "eminence", 0x6c, 0x30, 0x82));
-        mColorList.add(new ColorName("purple", "byzantium", 0x70, 0x29, 0x63));
-        mColorList.add(new ColorName("purple", "pansy", 0x78, 0x18, 0x4a));
-        mColorList.add(new ColorName("purple", "dark violet", 0x94, 0x00, 0xd3));
-        mColorList.add(new ColorName("purple", "lavender blush", 0xff, 0xf0, 0xf5));
-        mColorList.add(new ColorName("purple", "lavender", 0xe6, 0xe6, 0xfa));
-        mColorList.add(new ColorName("purple", "medium purple", 0x93, 0x70, 0xdb));
-        mColorList.add(new ColorName("purple", "medium violet red", 0xc7, 0x15, 0x85));
-        mColorList.add(new ColorName("purple", "pale violet red", 0xdb, 0x70, 0x93));
-        mColorList.add(new ColorName("purple", "plum", 0xdd, 0xa0, 0xdd));
-        mColorList.add(new ColorName("purple", "purple", 0x80, 0x00, 0x80));
-        mColorList.add(new ColorName("purple", "violet", 0xee, 0x82, 0xee));
-
-        mInitialized = true;
-        return true;
+    /**
+     * Create a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSession} that
+     * remembers its last answer and skips the search while the input stays near it. The session
+     * can be created before the cache is initialized and answers null until it is.
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSession}
+     */
+    public ColorNameSession createSession() {
+        return new ColorNameSession(this);
+    }
+
+    /**
+     * Get the number of searches the memo has answered
+     *
+     * @return {@link long}
+     */
+    public long getMemoHitCount() {
+        return getSnapshot().mMemo.getHitCount();
     }
 
     /**
-     * ColorName object to link RGB colors to a name
+     * Get the number of searches that missed the memo and ran a nearest neighbour search
+     *
+     * @return {@link long}
      */
-    private class ColorName {
+    public long getMemoMissCount() {
+        return getSnapshot().mMemo.getMissCount();
+    }
 
-        // Members
-        private String mColorName = null;
-        private String mShadeName = null;
-        private int r = 0, g = 0, b = 0;
+    /**
+     * Get the current snapshot without requiring one
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot}, or null
+     * before initialization and after {@link #destroy()}
+     */
+    ColorNameSnapshot peekSnapshot() {
+        return mSnapshot.get();
+    }
 
-        /**
-         * Constructor
-         *
-         * @param shadeName {@link String} name of shade
-         * @param colorName {@link String} name of the color
-         * @param r         {@link int} red value
-         * @param g         {@link int} green value
-         * @param b         {@link int} blue value
-         */
-        public ColorName(String shadeName, String colorName, int r, int g, int b) {
-            this.mShadeName = shadeName;
-            this.mColorName = colorName;
-            this.r = r;
-            this.g = g;
-            this.b = b;
+    /**
+     * Get the current snapshot
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot}
+     */
+    ColorNameSnapshot getSnapshot() {
+        ColorNameSnapshot snapshot = mSnapshot.get();
+        if (snapshot == null) {
+            throw new IllegalStateException("This instance has not been initialized yet.");
         }
+        return snapshot;
+    }
 
-        /**
-         * Get the name of the shade
-         *
-         * @return {@link String}
-         */
-        public String getShade() {
-            return mShadeName;
+    /**
+     * Initialize this ColorNameCache. If it was already initialized, it will simply return false;
+     *
+     * @return {@link boolean}
+     */
+    public synchronized boolean init() {
+        if (mSnapshot.get() != null) {
+            logDebug("The ColorNameCache has already been initialized");
+            return false;
         }
 
-        /**
-         * Get the name of the color
-         *
-         * @return {@link String}
-         */
-        public String getName() {
-            return mColorName;
+        ColorPalette palette = loadDefaultPalette();
+        if (Thread.currentThread().isInterrupted()) {
+            logDebug("Initialization cancelled");
+            return false;
         }
+        setPalette(palette);
+        return true;
+    }
 
-        /**
-         * Get the RED value of this color.
-         *
-         * @return {@link int}
-         */
-        public int getR() {
-            return r;
+    /**
+     * Map the built in palette from the palette file, or build it and write the file if the file
+     * is missing or stale
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     */
+    private ColorPalette loadDefaultPalette() {
+        if (mPaletteFile == null) {
+            return createDefaultPalette();
+        }
+        try {
+            return ColorPaletteFile.map(mPaletteFile, DEFAULT_PALETTE_REVISION);
+        } catch (IOException e) {
+            logDebug("Building the default palette: " + e.getMessage());
+        }
+        ColorPalette palette = createDefaultPalette();
+        try {
+            File directory = mPaletteFile.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+            ColorPaletteFile.write(palette, DEFAULT_PALETTE_REVISION, mPaletteFile);
+        } catch (IOException e) {
+            logWarning("Could not save the default palette", e);
         }
+        return palette;
+    }
 
-        /**
-         * Get the GREEN value of this color.
-         *
-         * @return {@link int}
-         */
-        public int getG() {
-            return g;
+    /**
+     * Create the built in palette of about 350 common color names
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     */
+    public static ColorPalette createDefaultPalette() {
+        ColorPalette.Builder palette = new ColorPalette.Builder();
+        palette.add("white", "white", 0xff, 0xff, 0xff);
+        palette.add("white", "white smoke", 0xf5, 0xf5, 0xf5);
+        palette.add("white", "ghost white", 0xf8, 0xf8, 0xff);
+        palette.add("white", "baby powder", 0xfe, 0xfe, 0xfa);
+        palette.add("white", "snow", 0xff, 0xfa, 0xfa);
+        palette.add("white", "ivory", 0xff, 0xff, 0xf0);
+        palette.add("white", "floral white", 0xff, 0xfa, 0xf0);
+        palette.add("white", "seashell", 0xff, 0xf5, 0xee);
+        palette.add("white", "cornsilk", 0xff, 0xf8, 0xdc);
+        palette.add("white", "old lace", 0xfd, 0xf5, 0xe6);
+        palette.add("white", "cream", 0xff, 0xfd, 0xd0);
+        palette.add("white", "beige", 0xf5, 0xf5, 0xdc);
+        palette.add("white", "linen", 0xfa, 0xf0, 0xe6);
+        palette.add("white", "antique white", 0xfa, 0xeb, 0xd7);
+        palette.add("white", "champagne", 0xf7, 0xe7, 0xc3);
+        palette.add("white", "eggshell", 0xf0, 0xea, 0xd6);
+        palette.add("white", "dutch white", 0xef, 0xdf, 0xbb);
+        palette.add("white", "bone", 0xe3, 0xda, 0xc9);
+        palette.add("white", "vanilla", 0xf3, 0xe5, 0xab);
+        palette.add("white", "flax", 0xee, 0xdc, 0x82);
+        palette.add("white", "navajo white", 0xff, 0xde, 0xad);
+        palette.add("white", "ecru", 0xc2, 0xb2, 0x80);
+        palette.add("black", "black", 0x00, 0x00, 0x00);
+        palette.add("black", "midnight blue", 0x19, 0x19, 0x70);
+        palette.add("black", "ebony", 0x55, 0x5d, 0x50);
+        palette.add("black", "taupe", 0x48, 0x3c, 0x32);
+        palette.add("black", "charcoal", 0x36, 0x45, 0x4f);
+        palette.add("black", "outer space", 0x41, 0x4a, 0x4c);
+        palette.add("black", "cafe noir", 0x4b, 0x36, 0x21);
+        palette.add("black", "black bean", 0x3d, 0x0c, 0x02);
+        palette.add("black", "black olive", 0x3b, 0x3c, 0x36);
+        palette.add("black", "onyx", 0x35, 0x38, 0x39);
+        palette.add("black", "phthalo green", 0x12, 0x35, 0x24);
+        palette.add("black", "jet", 0x34, 0x34, 0x34);
+        palette.add("black", "black leather jacket", 0x25, 0x35, 0x29);
+        palette.add("black", "charleston green", 0x23, 0x2b, 0x2b);
+        palette.add("black", "eerie black", 0x1b, 0x1b, 0x1b);
+        palette.add("black", "licorice", 0x1a, 0x11, 0x10);
+        palette.add("gray", "dark slate gray", 0x2f, 0x4f, 0x4f);
+        palette.add("gray", "light slate gray", 0x77, 0x88, 0x99);
+        palette.add("achromatic gray", "gainsboro", 0xdc, 0xdc, 0xdc);
+        palette.add("achromatic gray", "light gray", 0xd3, 0xd3, 0xd3);
+        palette.add("achromatic gray", "silver", 0xc0, 0xc0, 0xc0);
+        palette.add("achromatic gray", "medium gray", 0xbe, 0xbe, 0xbe);
+        palette.add("achromatic gray", "dark medium gray", 0xa9, 0xa9, 0xa9);
+        palette.add("achromatic gray", "spanish gray", 0x98, 0x98, 0x98);
+        palette.add("achromatic gray", "gray", 0x80, 0x80, 0x80);
+        palette.add("achromatic gray", "dim gray", 0x69, 0x69, 0x69);
+        palette.add("achromatic gray", "davy's gray", 0x55, 0x55, 0x55);
+        palette.add("off gray", "platinum", 0xb2, 0xbe, 0xb5);
+        palette.add("off gray", "battleship gray", 0x84, 0x84, 0x82);
+        palette.add("cool gray", "cool gray", 0x8c, 0x92, 0xac);
+        palette.add("cool gray", "cadet gray", 0x91, 0xa3, 0xb0);
+        palette.add("cool gray", "blue-gray", 0x66, 0x99, 0xcc);
+        palette.add("cool gray", "glaucos", 0x60, 0x82, 0xb6);
+        palette.add("cool gray", "slate gray", 0x70, 0x80, 0x90);
+        palette.add("warm gray", "puce", 0x72, 0x2f, 0x37);
+        palette.add("warm gray", "rose quartz", 0xaa, 0x98, 0xa9);
+        palette.add("warm gray", "cinereous", 0x98, 0x81, 0x7b);
+        palette.add("warm gray", "rocket metallic", 0x8a, 0x7f, 0x8d);
+        palette.add("pink", "coral", 0xff, 0x7f, 0x50);
+        palette.add("pink", "dark magenta", 0x8b, 0x00, 0x8b);
+        palette.add("pink", "dark orchid", 0x99, 0x32, 0xcc);
+        palette.add("pink", "dark salmon", 0xe9, 0x96, 0x7a);
+        palette.add("pink", "deep pink", 0xff, 0x14, 0x93);
+        palette.add("pink", "fuchsia", 0xff, 0x00, 0xff);
+        palette.add("pink", "light coral", 0xf0, 0x80, 0x80);
+        palette.add("pink", "light pink", 0xff, 0xb6, 0xc1);
+        palette.add("pink", "light salmon", 0xff, 0xa0, 0x7a);
+        palette.add("pink", "medium orchid", 0xba, 0x55, 0xd3);
+        palette.add("pink", "orchid", 0xda, 0x70, 0xd6);
+        palette.add("pink", "peach puff", 0xff, 0xda, 0xb9);
+        palette.add("pink", "salmon", 0xfa, 0x80, 0x72);
+        palette.add("pink", "hot magenta", 0xff, 0x1d, 0xce);
+        palette.add("pink", "pink", 0xff, 0xc0, 0xcb);
+        palette.add("pink", "hot pink", 0xff, 0x69, 0xb4);
+        palette.add("pink", "deep pink", 0xff, 0x69, 0xb4);
+        palette.add("pink", "champagne pink", 0xf1, 0xdd, 0xcf);
+        palette.add("pink", "pink lace", 0xff, 0xdd, 0xf4);
+        palette.add("pink", "piggy pink", 0xfd, 0xdd, 0xe6);
+        palette.add("pink", "pale pink", 0xf9, 0xcc, 0xca);
+        palette.add("pink", "baby pink", 0xf3, 0xc2, 0xc2);
+        palette.add("pink", "spanish pink", 0xf7, 0xbf, 0xbe);
+        palette.add("pink", "cameo pink", 0xef, 0xbb, 0xcc);
+        palette.add("pink", "orchid pink", 0xf2, 0xbd, 0xcd);
+        palette.add("pink", "cherry blossom pink", 0xff, 0xb7, 0xc5);
+        palette.add("pink", "light hot pink", 0xff, 0xb3, 0xde);
+        palette.add("pink", "lavendar pink", 0xfb, 0xae, 0xd2);
+        palette.add("pink", "cotton candy", 0xff, 0xbc, 0xd9);
+        palette.add("pink", "carnation pink", 0xff, 0xa6, 0xc9);
+        palette.add("pink", "baker-miller pink", 0xff, 0x91, 0xaf);
+        palette.add("pink", "tickle me pink", 0xfc, 0x89, 0xac);
+        palette.add("pink", "amaranth pink", 0xf1, 0x9c, 0xbb);
+        palette.add("pink", "charm pink", 0xe6, 0x8f, 0xac);
+        palette.add("pink", "china pink", 0xde, 0x6f, 0xa1);
+        palette.add("pink", "tango pink", 0xe4, 0x71, 0x7a);
+        palette.add("pink", "congo pink", 0xf8, 0x83, 0x79);
+        palette.add("pink", "pastel pink", 0xde, 0xa5, 0xa4);
+        palette.add("pink", "new york pink", 0xd7, 0x83, 0x7f);
+        palette.add("pink", "solid pink", 0x89, 0x38, 0x43);
+        palette.add("pink", "silver pink", 0xc4, 0xae, 0xad);
+        palette.add("pink", "queen pink", 0xe8, 0xcc, 0xd7);
+        palette.add("pink", "pink lavender", 0xd8, 0xb2, 0xd1);
+        palette.add("pink", "mountbatten pink", 0x99, 0x7a, 0x8d);
+        palette.add("pink", "pink (pantone)", 0xd7, 0x48, 0x94);
+        palette.add("pink", "mexican pink", 0xe4, 0x00, 0x7c);
+        palette.add("pink", "barbie pink", 0xe0, 0x21, 0x8a);
+        palette.add("pink", "fandango pink", 0xde, 0x52, 0x85);
+        palette.add("pink", "paradise pink", 0xe6, 0x3e, 0x62);
+        palette.add("pink", "brink pink", 0xfb, 0x60, 0x7f);
+        palette.add("pink", "french pink", 0xfd, 0x6c, 0x9e);
+        palette.add("pink", "bright pink", 0xff, 0x00, 0x7f);
+        palette.add("pink", "persian pink", 0xf7, 0x7f, 0xbe);
+        palette.add("pink", "light deep pink", 0xff, 0x5c, 0xcd);
+        palette.add("pink", "ultra pink", 0xff, 0x6f, 0xff);
+        palette.add("pink", "shocking pink", 0xfc, 0x0f, 0xc0);
+        palette.add("pink", "super pink", 0xcf, 0x6b, 0xa9);
+        palette.add("pink", "steel pink", 0xcc, 0x33, 0xcc);
+        palette.add("red", "indian red", 0xcd, 0x5c, 0x5c);
+        palette.add("red", "indigo", 0x4b, 0x00, 0x82);
+        palette.add("red", "misty rose", 0xff, 0xe4, 0xe1);
+        palette.add("red", "orange red", 0xff, 0x45, 0x00);
+        palette.add("red", "red", 0xff, 0x00, 0x00);
+        palette.add("red", "imperial red", 0xed, 0x29, 0x39);
+        palette.add("red", "spanish red", 0xe6, 0x00, 0x26);
+        palette.add("red", "desire", 0xea, 0x3c, 0x53);
+        palette.add("red", "ruby", 0xe6, 0x20, 0x20);
+        palette.add("red", "crimson", 0xdc, 0x14, 0x3c);
+        palette.add("red", "rusty red", 0xda, 0x2c, 0x43);
+        palette.add("red", "cardinal red", 0xc4, 0x1e, 0x3a);
+        palette.add("red", "cornell red", 0xb3, 0x1b, 0x1b);
+        palette.add("red", "fire brick", 0xb2, 0x22, 0x22);
+        palette.add("red", "redwood", 0xa4, 0x5a, 0x52);
+        palette.add("red", "OU crimson red", 0x99, 0x00, 0x00);
+        palette.add("red", "dark red", 0x8b, 0x00, 0x00);
+        palette.add("red", "maroon", 0x80, 0x00, 0x00);
+        palette.add("red", "barn red", 0x7c, 0x0a, 0x02);
+        palette.add("brown", "wheat", 0xf5, 0xde, 0xb3);
+        palette.add("brown", "bisque", 0xff, 0xe4, 0xc4);
+        palette.add("brown", "blanched almond", 0xff, 0xeb, 0xcd);
+        palette.add("brown", "brown", 0xa5, 0x2a, 0x2a);
+        palette.add("brown", "burly wood", 0xde, 0xb8, 0x87);
+        palette.add("brown", "chocolate", 0xd2, 0x69, 0x1e);
+        palette.add("brown", "dark khaki", 0xbd, 0xb7, 0x6b);
+        palette.add("brown", "khaki", 0xf0, 0xe6, 0x8c);
+        palette.add("brown", "moccasin", 0xff, 0xe4, 0xb5);
+        palette.add("brown", "olive drab", 0x6b, 0x8e, 0x23);
+        palette.add("brown", "saddle brown", 0x8b, 0x45, 0x13);
+        palette.add("brown", "sienna", 0xa0, 0x52, 0x2d);
+        palette.add("brown", "brown", 0x96, 0x4b, 0x00);
+        palette.add("brown", "beaver", 0x9f, 0x81, 0x70);
+        palette.add("brown", "beige", 0xf5, 0xf5, 0xdc);
+        palette.add("brown", "buff", 0xf0, 0xdc, 0x82);
+        palette.add("brown", "burnt umber", 0x8a, 0x33, 0x24);
+        palette.add("brown", "chestnut", 0x95, 0x45, 0x35);
+        palette.add("brown", "desert sand", 0xed, 0xc9, 0xaf);
+        palette.add("brown", "khaki", 0xc3, 0xb0, 0x91);
+        palette.add("brown", "kobicha", 0x6b, 0x44, 0x23);
+        palette.add("brown", "peru", 0xcd, 0x85, 0x3f);
+        palette.add("brown", "raw umber", 0x82, 0x66, 0x44);
+        palette.add("brown", "rosy brown", 0xbc, 0x8f, 0x8f);
+        palette.add("brown", "russet", 0x80, 0x46, 0x1b);
+        palette.add("brown", "sandy brown", 0xf4, 0xa4, 0x60);
+        palette.add("brown", "smokey topaz", 0x83, 0x2a, 0x0d);
+        palette.add("brown", "tan", 0xd2, 0xb4, 0x8c);
+        palette.add("brown", "taupe", 0x48, 0x3c, 0x32);
+        palette.add("brown", "wood brown", 0xc1, 0x9a, 0x6b);
+        palette.add("orange", "traditional orange", 0xff, 0x7f, 0x00);
+        palette.add("orange", "orange", 0xff, 0xa5, 0x00);
+        palette.add("orange", "dark orange", 0xff, 0x8c, 0x00);
+        palette.add("orange", "papaya whip", 0xff, 0xef, 0xd5);
+        palette.add("orange", "peach", 0xff, 0xe5, 0xb4);
+        palette.add("orange", "apricot", 0xfb, 0xce, 0xb1);
+        palette.add("orange", "melon", 0xfd, 0xbc, 0xb4);
+        palette.add("orange", "atomic tangerine", 0xff, 0x99, 0x66);
+        palette.add("orange", "tea rose", 0xf8, 0x83, 0x79);
+        palette.add("orange", "carrot orange", 0xed, 0x91, 0x21);
+        palette.add("orange", "orange peel", 0xff, 0x9f, 0x00);
+        palette.add("orange", "princeton orange", 0xf5, 0x80, 0x25);
+        palette.add("orange", "spanish orange", 0xe8, 0x61, 0x00);
+        palette.add("orange", "pumpkin", 0xff, 0x75, 0x18);
+        palette.add("orange", "giants orange", 0xfe, 0x5a, 0x1d);
+        palette.add("orange", "vermillion", 0xe3, 0x42, 0x34);
+        palette.add("orange", "tomato", 0xff, 0x63, 0x47);
+        palette.add("orange", "bittersweet", 0xfe, 0x6f, 0x5e);
+        palette.add("orange", "persimmon", 0xec, 0x58, 0x00);
+        palette.add("orange", "persian orange", 0xd9, 0x90, 0x58);
+        palette.add("orange", "alloy orange", 0xc4, 0x63, 0x10);
+        palette.add("orange", "burnt orange", 0xcc, 0x55, 0x00);
+        palette.add("orange", "bittersweet shimmer", 0xbf, 0x4f, 0x51);
+        palette.add("yellow", "dark golden rod", 0xb8, 0x86, 0x0b);
+        palette.add("yellow", "lemon chiffon", 0xff, 0xfa, 0xcd);
+        palette.add("yellow", "light golden rod yellow", 0xfa, 0xfa, 0xd2);
+        palette.add("yellow", "light yellow", 0xff, 0xff, 0xe0);
+        palette.add("yellow", "pale golden rod", 0xee, 0xe8, 0xaa);
+        palette.add("yellow", "yellow", 0xff, 0xff, 0x00);
+        palette.add("yellow", "light yellow", 0xff, 0xff, 0xed);
+        palette.add("yellow", "cream", 0xff, 0xff, 0xcc);
+        palette.add("yellow", "unmellow yellow", 0xff, 0xff, 0x66);
+        palette.add("yellow", "lemon", 0xff, 0xac, 0xd);
+        palette.add("yellow", "mellow yellow", 0xf8, 0xde, 0x7e);
+        palette.add("yellow", "royal yellow", 0xfa, 0xda, 0x5e);
+        palette.add("yellow", "gold", 0xff, 0xd7, 0x00);
+        palette.add("yellow", "cyber yellow", 0xff, 0xd3, 0x00);
+        palette.add("yellow", "safety yellow", 0xed, 0xd2, 0x02);
+        palette.add("yellow", "goldenrod", 0xda, 0xa5, 0x20);
+        palette.add("yellow", "olive", 0x80, 0x80, 0x00);
+        palette.add("green", "mint cream", 0xf5, 0xff, 0xfa);
+        palette.add("green", "chartreuse", 0x7f, 0xff, 0x00);
+        palette.add("green", "dark olive green", 0x55, 0x6b, 0x2f);
+        palette.add("green", "dark sea green", 0x8f, 0xbc, 0x8f);
+        palette.add("green", "dark turquoise", 0x00, 0xce, 0xd1);
+        palette.add("green", "honey dew", 0xf0, 0xff, 0xf0);
+        palette.add("green", "lawn green", 0x7c, 0xfc, 0x00);
+        palette.add("green", "lime green", 0x32, 0xcd, 0x32);
+        palette.add("green", "lime", 0x00, 0xff, 0x00);
+        palette.add("green", "medium sea green", 0x3c, 0xb3, 0x71);
+        palette.add("green", "medium spring green", 0x00, 0xfa, 0x9a);
+        palette.add("green", "medium turquoise", 0x48, 0xd1, 0xcc);
+        palette.add("green", "pale turquoise", 0xaf, 0xee, 0xee);
+        palette.add("green", "spring green", 0x00, 0xff, 0x7f);
+        palette.add("green", "yellow green", 0x9a, 0xcd, 0x32);
+        palette.add("green", "artichoke", 0x8f, 0x97, 0x79);
+        palette.add("green", "asparagus", 0x87, 0xa9, 0x6b);
+        palette.add("green", "avocado", 0x56, 0x82, 0x03);
+        palette.add("green", "fern green", 0x71, 0xbc, 0x78);
+        palette.add("green", "forest green", 0x22, 0x8b, 0x22);
+        palette.add("green", "hooker's green", 0x49, 0x79, 0x6b);
+        palette.add("green", "jungle green", 0x29, 0xab, 0x87);
+        palette.add("green", "laurel green", 0xa9, 0xba, 0x9d);
+        palette.add("green", "light green", 0x90, 0xee, 0x90);
+        palette.add("green", "mantis", 0x74, 0xc3, 0x65);
+        palette.add("green", "moss green", 0x8a, 0x9a, 0x58);
+        palette.add("green", "myrtle green", 0x31, 0x78, 0x73);
+        palette.add("green", "mint green", 0x98, 0xfb, 0x98);
+        palette.add("green", "pine green", 0x01, 0x79, 0x6f);
+        palette.add("green", "shamrock green", 0x00, 0x9e, 0x60);
+        palette.add("green", "teal", 0x00, 0x80, 0x80);
+        palette.add("green", "dark green", 0x00, 0x64, 0x00);
+        palette.add("green", "bright green", 0x66, 0xff, 0x00);
+        palette.add("green", "brunswick green", 0x1b, 0x4d, 0x3e);
+        palette.add("green", "cal poly pomona green", 0x1e, 0x4d, 0x2b);
+        palette.add("green", "dark pastel green", 0x03, 0xc0, 0x3c);
+        palette.add("green", "dartmouth green", 0x00, 0x70, 0x3c);
+        palette.add("green", "emerald", 0x50, 0xc8, 0x78);
+        palette.add("green", "feldgrau", 0x4d, 0x5d, 0x53);
+        palette.add("green", "go green", 0x00, 0xab, 0x66);
+        palette.add("green", "yellow-green", 0xad, 0xff, 0x2f);
+        palette.add("green", "harlequin", 0x3f, 0xff, 0x00);
+        palette.add("green", "hunter green", 0x35, 0x5e, 0x3b);
+        palette.add("green", "india green", 0x13, 0x88, 0x08);
+        palette.add("green", "islamic green", 0x00, 0x99, 0x00);
+        palette.add("green", "jade", 0x00, 0xa8, 0x6b);
+        palette.add("green", "kelly green", 0x4c, 0xbb, 0x17);
+        palette.add("green", "malachite", 0xbd, 0xa5, 0x1);
+        palette.add("green", "msu green", 0x18, 0x45, 0x3b);
+        palette.add("green", "north texas green", 0x00, 0x27, 0x79);
+        palette.add("green", "office green", 0x00, 0x80, 0x00);
+        palette.add("green", "pakistan green", 0x00, 0x66, 0x00);
+        palette.add("green", "paris green", 0x50, 0xc8, 0x78);
+        palette.add("green", "persian green", 0x00, 0xa6, 0x93);
+        palette.add("green", "rifle green", 0x44, 0x4c, 0x38);
+        palette.add("green", "russian green", 0x67, 0x92, 0x67);
+        palette.add("green", "sacramento state green", 0x00, 0x56, 0x3f);
+        palette.add("green", "sea green", 0x2e, 0x8b, 0x57);
+        palette.add("green", "spanish green", 0x00, 0x91, 0x50);
+        palette.add("cyan", "cyan", 0x00, 0xff, 0xff);
+        palette.add("cyan", "light cyan", 0xe0, 0xff, 0xff);
+        palette.add("cyan", "aero blue", 0xc9, 0xff, 0xe5);
+        palette.add("cyan", "celeste", 0xb2, 0xff, 0xff);
+        palette.add("cyan", "electric blue", 0x7d, 0xf9, 0xff);
+        palette.add("cyan", "turquoise", 0x40, 0xe0, 0xd0);
+        palette.add("cyan", "robin egg blue", 0x00, 0xcc, 0xcc);
+        palette.add("cyan", "light sea green", 0x20, 0xb2, 0xaa);
+        palette.add("cyan", "blue-green", 0x0d, 0x98, 0xba);
+        palette.add("cyan", "keppel", 0x3a, 0xb0, 0x9e);
+        palette.add("cyan", "cerulean", 0x00, 0x7b, 0xa7);
+        palette.add("cyan", "dark cyan", 0x00, 0x8b, 0x8b);
+        palette.add("cyan", "midnight green", 0x00, 0x49, 0x53);
+        palette.add("cyan", "charleston green", 0x23, 0x2b, 0x2b);
+        palette.add("cyan", "aquamarine", 0x7f, 0xff, 0xd4);
+        palette.add("cyan", "medium aqua marine", 0x66, 0xcd, 0xaa);
+        palette.add("blue", "alice blue", 0xf0, 0xf8, 0xff);
+        palette.add("blue", "azure", 0xf0, 0xff, 0xff);
+        palette.add("blue", "blue violet", 0x8a, 0x2b, 0xe2);
+        palette.add("blue", "cadet blue", 0x5f, 0x9e, 0xa0);
+        palette.add("blue", "cornflower blue", 0x64, 0x95, 0xed);
+        palette.add("blue", "dark slate blue", 0x48, 0x3d, 0x8b);
+        palette.add("blue", "deep sky blue", 0x00, 0xbf, 0xff);
+        palette.add("blue", "dodger blue", 0x1e, 0x90, 0xff);
+        palette.add("blue", "light sky blue", 0x87, 0xce, 0xfa);
+        palette.add("blue", "light steel blue", 0xb0, 0xc4, 0xde);
+        palette.add("blue", "medium slate blue", 0x7b, 0x68, 0xee);
+        palette.add("blue", "royal blue", 0x41, 0x69, 0xe1);
+        palette.add("blue", "sky blue", 0x87, 0xce, 0xeb);
+        palette.add("blue", "slate blue", 0x6a, 0x5a, 0xcd);
+        palette.add("blue", "steel blue", 0x46, 0x82, 0xb4);
+        palette.add("blue", "blue", 0x00, 0x00, 0xff);
+        palette.add("blue", "periwinkle", 0xcc, 0xcc, 0xff);
+        palette.add("blue", "powder blue", 0xb0, 0xe0, 0xe6);
+        palette.add("blue", "light blue", 0xad, 0xd8, 0xe6);
+        palette.add("blue", "baby blue", 0x89, 0xcf, 0xf0);
+        palette.add("blue", "crayola blue", 0x1f, 0x75, 0xfe);
+        palette.add("blue", "medium blue", 0x00, 0x00, 0xcd);
+        palette.add("blue", "spanish blue", 0x00, 0x70, 0xbb);
+        palette.add("blue", "liberty", 0x54, 0x5a, 0xa7);
+        palette.add("blue", "egyption blue", 0x10, 0x34, 0xa6);
+        palette.add("blue", "dark blue", 0x00, 0x00, 0x8b);
+        palette.add("blue", "electric ultramarine", 0x3f, 0x00, 0xff);
+        palette.add("blue", "resolution blue", 0x00, 0x23, 0x87);
+        palette.add("blue", "navy blue", 0x00, 0x00, 0x80);
+        palette.add("blue", "catalina blue", 0x06, 0x2a, 0x78);
+        palette.add("blue", "midnight blue", 0x19, 0x19, 0x70);
+        palette.add("blue", "independence", 0x4c, 0x51, 0x6d);
+        palette.add("blue", "space cadet", 0x1d, 0x29, 0x51);
+        palette.add("purple", "purple", 0x80, 0x00, 0x80);
+        palette.add("purple", "tyrian purple", 0x66, 0x02, 0x3c);
+        palette.add("purple", "royal purple", 0x78, 0x51, 0xa9);
+        palette.add("purple", "red-violet", 0xc7, 0x15, 0x85);
+        palette.add("purple", "thistle", 0xd8, 0xbf, 0xd8);
+        palette.add("purple", "mauve", 0xe0, 0xb0, 0xff);
+        palette.add("purple", "orchid", 0xda, 0x70, 0xd6);
+        palette.add("purple", "heliotrope", 0xdf, 0x73, 0xff);
+        palette.add("purple", "phlox", 0xdf, 0x00, 0xff);
+        palette.add("purple", "purple pizzazz", 0xfe, 0x4e, 0xda);
+        palette.add("purple", "liseran purple", 0xde, 0x6f, 0xa1);
+        palette.add("purple", "mulberry", 0xc5, 0x4b, 0x8c);
+        palette.add("purple", "pearly purple", 0xb7, 0x68, 0xa2);
+        palette.add("purple", "purpureus", 0x9a, 0x4e, 0xae);
+        palette.add("purple", "ksu purple", 0x51, 0x28, 0x88);
+        palette.add("purple", "pomp and power", 0x86, 0x60, 0x8e);
+        palette.add("purple", "mardi gras", 0x88, 0x00, 0x95);
+        palette.add("purple", "eminence", 0x6c, 0x30, 0x82);
+        palette.add("purple", "byzantium", 0x70, 0x29, 0x63);
+        palette.add("purple", "pansy", 0x78, 0x18, 0x4a);
+        palette.add("purple", "dark violet", 0x94, 0x00, 0xd3);
+        palette.add("purple", "lavender blush", 0xff, 0xf0, 0xf5);
+        palette.add("purple", "lavender", 0xe6, 0xe6, 0xfa);
+        palette.add("purple", "medium purple", 0x93, 0x70, 0xdb);
+        palette.add("purple", "medium violet red", 0xc7, 0x15, 0x85);
+        palette.add("purple", "pale violet red", 0xdb, 0x70, 0x93);
+        palette.add("purple", "plum", 0xdd, 0xa0, 0xdd);
+        palette.add("purple", "purple", 0x80, 0x00, 0x80);
+        palette.add("purple", "violet", 0xee, 0x82, 0xee);
+        return palette.build();
+    }
+
+    /**
+     * Load or build the quantized lookup table for a snapshot on a background thread, then publish
+     * a copy of the snapshot with the table attached unless the palette has been replaced meanwhile.
+     * Callers hold the instance lock.
+     *
+     * @param snapshot {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot}
+     */
+    private void startCubeBuilder(final ColorNameSnapshot snapshot) {
+        if (snapshot.mTree.size() == 0 || snapshot.mTree.size() > ColorLookupCube.MAX_PALETTE_SIZE) {
+            logWarning("Palette size not supported by the quantized lookup table, using the indexed search", null);
+            return;
         }
+        mCubeBuilder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    long start = System.currentTimeMillis();
+                    ColorLookupCube cube = loadCube(snapshot);
+                    if (mSnapshot.compareAndSet(snapshot, snapshot.withCube(cube))) {
+                        logDebug("Lookup table ready in " + (System.currentTimeMillis() - start) + "ms, "
+                                + cube.getAmbiguousCount() + " of " + cube.getCellCount() + " cells need a search");
+                    }
+                } catch (InterruptedException e) {
+                    logDebug("Lookup table build cancelled");
+                }
+            }
+        }, LOG_TAG);
+        mCubeBuilder.setPriority(Thread.MIN_PRIORITY);
+        mCubeBuilder.setDaemon(true);
+        mCubeBuilder.start();
+    }
 
-        /**
-         * Get the BLUE value of this color.
-         *
-         * @return {@link int}
-         */
-        public int getB() {
-            return b;
+    /**
+     * Map the lookup table of a palette from the table cache, or build it and store it there
+     *
+     * @param snapshot {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorLookupCube}
+     * @throws InterruptedException if the building thread is interrupted
+     */
+    private ColorLookupCube loadCube(ColorNameSnapshot snapshot) throws InterruptedException {
+        if (mTableCache == null) {
+            return new ColorLookupCube(snapshot.mTree);
+        }
+        long key = snapshot.mPalette.getColorHash();
+        ByteBuffer data = mTableCache.get(CUBE_TABLE, ColorLookupCube.FORMAT_VERSION, key);
+        if (data != null) {
+            try {
+                return new ColorLookupCube(data, snapshot.mPalette.size());
+            } catch (IllegalArgumentException e) {
+                logWarning("Rebuilding the lookup table: " + e.getMessage(), null);
+            }
         }
 
-        /**
-         * Compute the color to get the proximity to the RGB color passed in the argument
-         *
-         * @param pixR {@link int}
-         * @param pixG {@link int}
-         * @param pixB {@link int}
-         * @return {@link int} proximity
-         */
-        public double computeMSE(int pixR, int pixG, int pixB) {
-
-            // Logging
-            StringBuilder logMsg = new StringBuilder();
-            logMsg.append("Computing MSE:");
-
-            // Red difference
-            int rdiff = pixR - r;
-            logMsg.append("\n\t");
-            logMsg.append("RDIFF: ");
-            logMsg.append(rdiff);
-
-            // Green difference
-            int gdiff = pixG - g;
-            logMsg.append("\n\t");
-            logMsg.append("GDIFF: ");
-            logMsg.append(gdiff);
-
-            // Blue difference
-            int bdiff = pixB - b;
-            logMsg.append("\n\t");
-            logMsg.append("BDIFF: ");
-            logMsg.append(bdiff);
-
-            int lr = rdiff * rdiff;
-            int lg = gdiff * gdiff;
-            int lb = bdiff * bdiff;
-
-            // Log rdiff^2
-            logMsg.append("\n\t");
-            logMsg.append("LR: ");
-            logMsg.append(lr);
-
-            // Log gdiff^2
-            logMsg.append("\n\t");
-            logMsg.append("LG: ");
-            logMsg.append(lg);
-
-            // Log bdiff^2
-            logMsg.append("\n\t");
-            logMsg.append("LB: ");
-            logMsg.append(lb);
-
-            double mse = (double) (lr + lg + lb) / 3.0d;
-            logMsg.append("\n\t");
-            logMsg.append("MSE: ");
-            logMsg.append(mse);
-            logMsg.append("\n");
-            return mse;
+        ColorLookupCube cube = new ColorLookupCube(snapshot.mTree);
+        ByteBuffer out = ByteBuffer.allocate(ColorLookupCube.getByteSize());
+        cube.write(out);
+        out.flip();
+        try {
+            mTableCache.put(CUBE_TABLE, ColorLookupCube.FORMAT_VERSION, key, out);
+        } catch (IOException e) {
+            logWarning("Could not save the lookup table", e);
         }
+        return cube;
+    }
 
-        /**
-         * Compute the color to get the proximity to the RGB color passed in the argument
-         *
-         * @param color {@link ColorName}
-         * @return {@link int} proximity
-         */
-        public double computeMSE(ColorName color) {
-            return computeMSE(color.getR(), color.getG(), color.getB());
+    /**
+     * Log a debug message to the current sink
+     *
+     * @param message {@link String}
+     */
+    private static void logDebug(String message) {
+        LogSink sink = sLogSink;
+        if (sink != null) {
+            sink.debug(LOG_TAG, message);
         }
+    }
 
+    /**
+     * Log a warning to the current sink
+     *
+     * @param message {@link String}
+     * @param e       {@link Throwable} cause, or null
+     */
+    private static void logWarning(String message, Throwable e) {
+        LogSink sink = sLogSink;
+        if (sink != null) {
+            sink.warning(LOG_TAG, message, e);
+        }
     }
 
 }
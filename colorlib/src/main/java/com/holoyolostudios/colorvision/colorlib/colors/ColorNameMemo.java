@@ -0,0 +1,183 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ColorNameMemo
+ * <p/>
+ * Fixed capacity memo from packed 24 bit RGB values to palette indexes. Entries live in a flat
+ * {@link java.util.concurrent.atomic.AtomicLongArray} organised as {@link #WAYS}-way sets, so a
+ * lookup probes at most four adjacent slots and nothing is boxed or allocated. Each set evicts
+ * with the CLOCK algorithm: a hit sets the entry's reference bit, and the set's hand clears
+ * reference bits until it finds an entry that has not been used since the last sweep.
+ * <p/>
+ * Thread safe without locks. Key, index and flags share one {@code long}, so a reader sees either
+ * a whole entry or none, and every update is a single compare and set. Races between writers can
+ * at worst store a color twice in a set or evict a different entry than strict CLOCK would; the
+ * memo never returns a wrong index.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorNameMemo {
+
+    // Constants
+    public static final int MISS = -1;
+    public static final int WAYS = 4;
+    private static final long VALID = 1L << 56;
+    private static final long REFERENCED = 1L << 57;
+    private static final long KEY_MASK = 0xFFFFFFL << 32;
+    private static final long INDEX_MASK = 0xFFFFFFFFL;
+
+    // Members
+    private final AtomicLongArray mEntries;
+    private final AtomicIntegerArray mHands;
+    private final int mSetShift;
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param capacity {@link Integer} number of entries, rounded up to a power of two of at least
+     *                 {@link #WAYS}
+     */
+    public ColorNameMemo(int capacity) {
+        int sets = 1;
+        while (sets * WAYS < capacity) {
+            sets <<= 1;
+        }
+        mEntries = new AtomicLongArray(sets * WAYS);
+        mHands = new AtomicIntegerArray(sets);
+        mSetShift = 32 - Integer.numberOfTrailingZeros(sets);
+    }
+
+    /**
+     * Get the number of entries the memo holds
+     *
+     * @return {@link Integer}
+     */
+    public int getCapacity() {
+        return mEntries.length();
+    }
+
+    /**
+     * Look up a color and count the hit or miss
+     *
+     * @param rgb {@link Integer} 0xRRGGBB
+     * @return {@link Integer} palette index, or {@link #MISS}
+     */
+    public int get(int rgb) {
+        long key = VALID | ((long) rgb << 32);
+        int base = set(rgb) * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            long entry = mEntries.get(i);
+            if ((entry & (VALID | KEY_MASK)) == key) {
+                if ((entry & REFERENCED) == 0) {
+                    mEntries.compareAndSet(i, entry, entry | REFERENCED);
+                }
+                mHits.incrementAndGet();
+                return (int) (entry & INDEX_MASK);
+            }
+        }
+        mMisses.incrementAndGet();
+        return MISS;
+    }
+
+    /**
+     * Store the palette index of a color, evicting an entry of its set if the set is full
+     *
+     * @param rgb   {@link Integer} 0xRRGGBB
+     * @param index {@link Integer} palette index
+     */
+    public void put(int rgb, int index) {
+        long entry = VALID | ((long) rgb << 32) | (index & INDEX_MASK);
+        int set = set(rgb);
+        int base = set * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            if (mEntries.get(i) == 0L && mEntries.compareAndSet(i, 0L, entry)) {
+                return;
+            }
+        }
+
+        // Sweep the hand, giving every referenced entry a second chance. Two sweeps clear every
+        // reference bit, so a slot is always found unless other writers keep winning the race, in
+        // which case the entry lands wherever the hand stopped.
+        int hand = mHands.get(set);
+        for (int step = 0; step < 2 * WAYS; step++) {
+            int i = base + hand;
+            long current = mEntries.get(i);
+            hand = (hand + 1) & (WAYS - 1);
+            if ((current & REFERENCED) != 0) {
+                mEntries.compareAndSet(i, current, current & ~REFERENCED);
+            } else if (mEntries.compareAndSet(i, current, entry)) {
+                mHands.set(set, hand);
+                return;
+            }
+        }
+        mEntries.set(base + hand, entry);
+        mHands.set(set, (hand + 1) & (WAYS - 1));
+    }
+
+    /**
+     * Drop all entries and reset the counters
+     */
+    public void clear() {
+        for (int i = 0; i < mEntries.length(); i++) {
+            mEntries.set(i, 0L);
+        }
+        for (int i = 0; i < mHands.length(); i++) {
+            mHands.set(i, 0);
+        }
+        mHits.set(0);
+        mMisses.set(0);
+    }
+
+    /**
+     * Get the number of lookups answered from the memo
+     *
+     * @return {@link Long}
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * Get the number of lookups that missed
+     *
+     * @return {@link Long}
+     */
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Pick the set of a color with a multiplicative hash, so neighbouring colors spread out
+     *
+     * @param rgb {@link Integer}
+     * @return {@link Integer}
+     */
+    private int set(int rgb) {
+        return (mSetShift == 32) ? 0 : (rgb * 0x9E3779B1) >>> mSetShift;
+    }
+
+}
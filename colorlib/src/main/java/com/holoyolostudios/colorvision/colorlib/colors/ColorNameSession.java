@@ -0,0 +1,172 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+/**
+ * ColorNameSession
+ * <p/>
+ * Stateful color naming for a stream of similar queries, such as the averages of consecutive
+ * preview frames. After each full lookup the session records how far the query was from the
+ * winner, d1, and from the closest other color, d2. Every color closer to that query than
+ * (d2 - d1) / 2 has the same nearest entry, so while the input stays inside that ball the last
+ * answer is returned after a single distance check.
+ * <p/>
+ * Sessions are cheap; create one per stream with
+ * {@link ColorNameCache#createSession()}. A session is not thread safe. It follows palette changes
+ * made through {@link ColorNameCache#setPalette(ColorPalette)} and forgets its last answer when
+ * the palette is replaced. While the cache is not initialized, including after
+ * {@link ColorNameCache#destroy()}, a session answers -1 and null instead of throwing, so a
+ * worker thread naming frames can outlive the cache.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorNameSession {
+
+    // Members
+    private final ColorNameCache mCache;
+    private ColorNameSnapshot mSnapshot = null;
+    private int mLastR = 0;
+    private int mLastG = 0;
+    private int mLastB = 0;
+    private int mLastIndex = -1;
+    private double mRadiusSquared = -1.0d;
+    private long mReuseCount = 0;
+    private long mSearchCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param cache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}
+     */
+    ColorNameSession(ColorNameCache cache) {
+        mCache = cache;
+    }
+
+    /**
+     * Get the name of a color, reusing the last answer when it is guaranteed not to change
+     *
+     * @param r {@link int}
+     * @param g {@link int}
+     * @param b {@link int}
+     * @return {@link String}, or null if the cache is not initialized
+     */
+    public String getColorName(int r, int g, int b) {
+        int index = getColorIndex(r, g, b);
+        ColorNameSnapshot snapshot = mSnapshot;
+        return (snapshot != null) ? snapshot.getDisplayName(index) : null;
+    }
+
+    /**
+     * Get the palette index of a color, reusing the last answer when it is guaranteed not to change
+     *
+     * @param r {@link int}
+     * @param g {@link int}
+     * @param b {@link int}
+     * @return {@link int} palette index, or -1 if the palette is empty or the cache is not initialized
+     */
+    public int getColorIndex(int r, int g, int b) {
+        ColorNameSnapshot snapshot = mCache.peekSnapshot();
+        if (snapshot == null) {
+            mSnapshot = null;
+            reset();
+            return -1;
+        }
+        if (snapshot != mSnapshot) {
+            if (mSnapshot == null || snapshot.mPalette != mSnapshot.mPalette) {
+                reset();
+            }
+            mSnapshot = snapshot;
+        }
+        int dr = r - mLastR;
+        int dg = g - mLastG;
+        int db = b - mLastB;
+        if (dr * dr + dg * dg + db * db < mRadiusSquared) {
+            mReuseCount++;
+            return mLastIndex;
+        }
+
+        mSearchCount++;
+        int index = snapshot.getColorIndex(r, g, b);
+        mLastR = r;
+        mLastG = g;
+        mLastB = b;
+        mLastIndex = index;
+        mRadiusSquared = radiusSquared(r, g, b, index);
+        return index;
+    }
+
+    /**
+     * Forget the last answer, so the next query runs a full lookup
+     */
+    public void reset() {
+        mLastIndex = -1;
+        mRadiusSquared = -1.0d;
+    }
+
+    /**
+     * Get the number of queries answered from the last result
+     *
+     * @return {@link long}
+     */
+    public long getReuseCount() {
+        return mReuseCount;
+    }
+
+    /**
+     * Get the number of queries that ran a full lookup
+     *
+     * @return {@link long}
+     */
+    public long getSearchCount() {
+        return mSearchCount;
+    }
+
+    /**
+     * Compute the squared radius of the ball around a query in which the answer cannot change
+     *
+     * @param r     {@link int}
+     * @param g     {@link int}
+     * @param b     {@link int}
+     * @param index {@link int} nearest palette entry
+     * @return {@link double}, negative if the ball is empty
+     */
+    private double radiusSquared(int r, int g, int b, int index) {
+        if (index < 0) {
+            return -1.0d;
+        }
+        long second = mSnapshot.mTree.secondNearestPacked(r, g, b, index);
+        if (second < 0) {
+
+            // A single color wins everywhere
+            return Double.MAX_VALUE;
+        }
+        int color = mSnapshot.mTree.getColor(index);
+        int dr = r - (color >> 16);
+        int dg = g - ((color >> 8) & 0xFF);
+        int db = b - (color & 0xFF);
+
+        // Shrink by a hair so rounding can never admit a point on the bisecting plane
+        double radius = (Math.sqrt(second >>> 32) - Math.sqrt(dr * dr + dg * dg + db * db)) / 2.0d - 1e-9d;
+        if (radius <= 0.0d) {
+            return -1.0d;
+        }
+        return radius * radius;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+/**
+ * ColorNameSnapshot
+ * <p/>
+ * Everything a lookup needs, frozen together: the palette, its k-d tree, the optional lookup
+ * cube and the memo. All fields are final and the parts are immutable or thread safe, so a
+ * snapshot published through a volatile or atomic reference can be read by any number of
+ * threads without locks. Changing the palette publishes a new snapshot instead of mutating
+ * this one, so a lookup always resolves its index and its name against the same palette.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+final class ColorNameSnapshot {
+
+    // Members
+    final ColorPalette mPalette;
+    final ColorKdTree mTree;
+    final ColorLookupCube mCube;
+    final ColorNameMemo mMemo;
+
+    /**
+     * Constructor
+     *
+     * @param palette {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @param tree    {@link com.holoyolostudios.colorvision.colorlib.colors.ColorKdTree} over the palette
+     * @param cube    {@link com.holoyolostudios.colorvision.colorlib.colors.ColorLookupCube}, or null
+     * @param memo    {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameMemo} for this palette
+     */
+    ColorNameSnapshot(ColorPalette palette, ColorKdTree tree, ColorLookupCube cube, ColorNameMemo memo) {
+        mPalette = palette;
+        mTree = tree;
+        mCube = cube;
+        mMemo = memo;
+    }
+
+    /**
+     * Copy this snapshot with a lookup cube attached
+     *
+     * @param cube {@link com.holoyolostudios.colorvision.colorlib.colors.ColorLookupCube}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSnapshot}
+     */
+    ColorNameSnapshot withCube(ColorLookupCube cube) {
+        return new ColorNameSnapshot(mPalette, mTree, cube, mMemo);
+    }
+
+    /**
+     * Find the palette index of the closest color: cube first, then the memo, then the tree
+     *
+     * @param r {@link int}
+     * @param g {@link int}
+     * @param b {@link int}
+     * @return {@link int} palette index, or -1 if the palette is empty
+     */
+    int getColorIndex(int r, int g, int b) {
+        int i = (mCube != null) ? mCube.lookup(r, g, b) : ColorLookupCube.AMBIGUOUS;
+        if (i != ColorLookupCube.AMBIGUOUS) {
+            return i;
+        }
+        int rgb = ((r & 0xFF) << 16) | ((g & 0xFF) << 8) | (b & 0xFF);
+        i = mMemo.get(rgb);
+        if (i == ColorNameMemo.MISS) {
+            i = mTree.nearest(r, g, b);
+            mMemo.put(rgb, i);
+        }
+        return i;
+    }
+
+    /**
+     * Get the display name of a palette entry
+     *
+     * @param index {@link int} palette index
+     * @return {@link String}, or null for a negative index
+     */
+    String getDisplayName(int index) {
+        return (index >= 0) ? mPalette.getDisplayName(index) : null;
+    }
+
+}
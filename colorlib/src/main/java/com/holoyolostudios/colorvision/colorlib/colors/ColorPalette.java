@@ -0,0 +1,357 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * ColorPalette
+ * <p/>
+ * Immutable list of named colors stored as parallel arrays. Channels are unsigned bytes, shades
+ * are ids into a table holding each distinct shade name once, and the "name (shade)" display
+ * string of every entry is built once when the palette is built. Lookups hand out entry ids or
+ * those prebuilt strings, so naming a color never allocates.
+ * <p/>
+ * Build one with a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette.Builder},
+ * or map one from a file with {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPaletteFile}.
+ * Mapped palettes keep their names in the file and decode each one the first time it is asked
+ * for. The decoded string is cached; two threads may decode the same name at once, which is
+ * harmless because strings are immutable.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorPalette {
+
+    // Constants
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Members
+    private final int mSize;
+    private final byte[] mRed;
+    private final byte[] mGreen;
+    private final byte[] mBlue;
+    private final int[] mShade;
+    private final String[] mShadeNames;
+    private final String[] mNames;
+    private final String[] mDisplayNames;
+    private final ByteBuffer mStrings;
+    private final int mOffsetsStart;
+    private final int mPoolStart;
+
+    /**
+     * Constructor
+     *
+     * @param builder {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette.Builder}
+     */
+    private ColorPalette(Builder builder) {
+        mSize = builder.mSize;
+        mRed = Arrays.copyOf(builder.mRed, mSize);
+        mGreen = Arrays.copyOf(builder.mGreen, mSize);
+        mBlue = Arrays.copyOf(builder.mBlue, mSize);
+        mShade = Arrays.copyOf(builder.mShade, mSize);
+        mShadeNames = builder.mShadeNames.toArray(new String[builder.mShadeNames.size()]);
+        mNames = Arrays.copyOf(builder.mNames, mSize);
+        mDisplayNames = new String[mSize];
+        for (int i = 0; i < mSize; i++) {
+            mDisplayNames[i] = mNames[i] + " (" + mShadeNames[mShade[i]] + ")";
+        }
+        mStrings = null;
+        mOffsetsStart = 0;
+        mPoolStart = 0;
+    }
+
+    /**
+     * Constructor for a mapped palette. Names are decoded from the string table on demand.
+     *
+     * @param red          {@link byte} array of red values
+     * @param green        {@link byte} array of green values
+     * @param blue         {@link byte} array of blue values
+     * @param shade        {@link int} array of shade ids
+     * @param shadeCount   {@link int} number of shades
+     * @param strings      {@link java.nio.ByteBuffer} holding the string offsets and the UTF-8 pool
+     * @param offsetsStart {@link int} position of the offsets; entry names come first, then shades
+     * @param poolStart    {@link int} position of the pool the offsets are relative to
+     */
+    ColorPalette(byte[] red, byte[] green, byte[] blue, int[] shade, int shadeCount, ByteBuffer strings,
+                 int offsetsStart, int poolStart) {
+        mSize = red.length;
+        mRed = red;
+        mGreen = green;
+        mBlue = blue;
+        mShade = shade;
+        mShadeNames = new String[shadeCount];
+        mNames = new String[mSize];
+        mDisplayNames = new String[mSize];
+        mStrings = strings;
+        mOffsetsStart = offsetsStart;
+        mPoolStart = poolStart;
+    }
+
+    /**
+     * Get the number of entries
+     *
+     * @return {@link int}
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Get the RED value of an entry
+     *
+     * @param index {@link int}
+     * @return {@link int} 0-255
+     */
+    public int getRed(int index) {
+        return mRed[index] & 0xFF;
+    }
+
+    /**
+     * Get the GREEN value of an entry
+     *
+     * @param index {@link int}
+     * @return {@link int} 0-255
+     */
+    public int getGreen(int index) {
+        return mGreen[index] & 0xFF;
+    }
+
+    /**
+     * Get the BLUE value of an entry
+     *
+     * @param index {@link int}
+     * @return {@link int} 0-255
+     */
+    public int getBlue(int index) {
+        return mBlue[index] & 0xFF;
+    }
+
+    /**
+     * Get the packed RGB value of an entry
+     *
+     * @param index {@link int}
+     * @return {@link int} 0xRRGGBB
+     */
+    public int getColor(int index) {
+        return (getRed(index) << 16) | (getGreen(index) << 8) | getBlue(index);
+    }
+
+    /**
+     * Get the name of an entry
+     *
+     * @param index {@link int}
+     * @return {@link String}
+     */
+    public String getName(int index) {
+        String name = mNames[index];
+        if (name == null) {
+            name = decode(index);
+            mNames[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Get the shade id of an entry
+     *
+     * @param index {@link int}
+     * @return {@link int} index into the shade table
+     */
+    public int getShadeId(int index) {
+        return mShade[index];
+    }
+
+    /**
+     * Get the shade name of an entry
+     *
+     * @param index {@link int}
+     * @return {@link String}
+     */
+    public String getShadeName(int index) {
+        return getShadeNameById(mShade[index]);
+    }
+
+    /**
+     * Get the name of a shade
+     *
+     * @param shade {@link int} shade id
+     * @return {@link String}
+     */
+    public String getShadeNameById(int shade) {
+        String name = mShadeNames[shade];
+        if (name == null) {
+            name = decode(mSize + shade);
+            mShadeNames[shade] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Get the number of distinct shades
+     *
+     * @return {@link int}
+     */
+    public int getShadeCount() {
+        return mShadeNames.length;
+    }
+
+    /**
+     * Get the prebuilt "name (shade)" string of an entry
+     *
+     * @param index {@link int}
+     * @return {@link String}
+     */
+    public String getDisplayName(int index) {
+        String name = mDisplayNames[index];
+        if (name == null) {
+            name = getName(index) + " (" + getShadeName(index) + ")";
+            mDisplayNames[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Decode a string of a mapped palette. Absolute reads only, so threads can share the buffer.
+     *
+     * @param id {@link int} entry index, or entry count plus shade id
+     * @return {@link String}
+     */
+    private String decode(int id) {
+        int start = mStrings.getInt(mOffsetsStart + 4 * id);
+        int end = mStrings.getInt(mOffsetsStart + 4 * id + 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = mStrings.get(mPoolStart + start + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Get a 64 bit FNV-1a hash of the entry count and the colors in order. Tables derived from the
+     * colors alone, such as a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorLookupCube},
+     * can be cached under this hash.
+     *
+     * @return {@link long}
+     */
+    public long getColorHash() {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ mSize) * 0x100000001b3L;
+        for (int i = 0; i < mSize; i++) {
+            hash = (hash ^ (mRed[i] & 0xFF)) * 0x100000001b3L;
+            hash = (hash ^ (mGreen[i] & 0xFF)) * 0x100000001b3L;
+            hash = (hash ^ (mBlue[i] & 0xFF)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Build a nearest color index over this palette
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorKdTree}
+     */
+    public ColorKdTree createTree() {
+        int[] red = new int[mSize];
+        int[] green = new int[mSize];
+        int[] blue = new int[mSize];
+        for (int i = 0; i < mSize; i++) {
+            red[i] = getRed(i);
+            green[i] = getGreen(i);
+            blue[i] = getBlue(i);
+        }
+        return new ColorKdTree(red, green, blue);
+    }
+
+    /**
+     * Builder
+     */
+    public static final class Builder {
+
+        // Members
+        private int mSize = 0;
+        private byte[] mRed = new byte[64];
+        private byte[] mGreen = new byte[64];
+        private byte[] mBlue = new byte[64];
+        private int[] mShade = new int[64];
+        private String[] mNames = new String[64];
+        private final ArrayList<String> mShadeNames = new ArrayList<String>();
+        private final HashMap<String, Integer> mShadeIds = new HashMap<String, Integer>();
+
+        /**
+         * Add an entry
+         *
+         * @param shadeName {@link String} name of shade
+         * @param colorName {@link String} name of the color
+         * @param r         {@link int} red value
+         * @param g         {@link int} green value
+         * @param b         {@link int} blue value
+         * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette.Builder} this
+         */
+        public Builder add(String shadeName, String colorName, int r, int g, int b) {
+            if ((r | g | b) < 0 || r > 255 || g > 255 || b > 255) {
+                throw new IllegalArgumentException("Color out of range for " + colorName + ": "
+                        + r + "," + g + "," + b);
+            }
+            if (mSize == mRed.length) {
+                int capacity = mSize * 2;
+                mRed = Arrays.copyOf(mRed, capacity);
+                mGreen = Arrays.copyOf(mGreen, capacity);
+                mBlue = Arrays.copyOf(mBlue, capacity);
+                mShade = Arrays.copyOf(mShade, capacity);
+                mNames = Arrays.copyOf(mNames, capacity);
+            }
+            Integer shade = mShadeIds.get(shadeName);
+            if (shade == null) {
+                shade = mShadeNames.size();
+                mShadeNames.add(shadeName);
+                mShadeIds.put(shadeName, shade);
+            }
+            mRed[mSize] = (byte) r;
+            mGreen[mSize] = (byte) g;
+            mBlue[mSize] = (byte) b;
+            mShade[mSize] = shade;
+            mNames[mSize] = colorName;
+            mSize++;
+            return this;
+        }
+
+        /**
+         * Get the number of entries added so far
+         *
+         * @return {@link int}
+         */
+        public int size() {
+            return mSize;
+        }
+
+        /**
+         * Build the palette
+         *
+         * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+         */
+        public ColorPalette build() {
+            return new ColorPalette(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * ColorPaletteFile
+ * <p/>
+ * Compact binary form of a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+ * that is read through a read-only memory map. Opening one costs a map call, a header check and a
+ * copy of the color channels; names stay in the file until they are first asked for. Every
+ * process that maps the same file shares its pages through the page cache.
+ * <p/>
+ * All values are big endian. Version 1 is laid out as:
+ * <pre>
+ *  0  magic "CVPL"
+ *  4  int   version
+ *  8  int   revision, chosen by the writer to tell palettes of the same origin apart
+ * 12  int   entry count n
+ * 16  int   shade count s
+ * 20  int   string pool length in bytes
+ * 24  n * 3 bytes of packed RGB
+ *     n * 2 bytes of unsigned shade ids
+ *     padding to a multiple of 4
+ *     (n + s + 1) ints of string offsets into the pool: entry names, then shade names
+ *     UTF-8 string pool
+ * </pre>
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorPaletteFile {
+
+    // Constants
+    public static final int MAGIC = 0x4356504C;
+    public static final int VERSION = 1;
+    public static final int ANY_REVISION = -1;
+    private static final int HEADER_SIZE = 24;
+    private static final int MAX_SHADES = 0xFFFF;
+
+    /**
+     * Private constructor
+     */
+    private ColorPaletteFile() {
+    }
+
+    /**
+     * Write a palette to a file. The data goes to a temporary file that is synced and then renamed
+     * over the target, so processes mapping the old file keep a consistent view and a crash leaves
+     * either the old file or the whole new one.
+     *
+     * @param palette  {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @param revision {@link int} revision stored in the header
+     * @param file     {@link java.io.File}
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(ColorPalette palette, int revision, File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        boolean renamed = false;
+        try {
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+                write(palette, revision, out);
+
+                // Make the data durable before the rename can make it visible
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not rename " + temp + " to " + file);
+            }
+            renamed = true;
+        } finally {
+            if (!renamed) {
+                temp.delete();
+            }
+        }
+    }
+
+    /**
+     * Write a palette to a stream. The stream is left open.
+     *
+     * @param palette  {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @param revision {@link int} revision stored in the header
+     * @param out      {@link java.io.OutputStream}
+     * @throws IOException if the stream fails
+     */
+    public static void write(ColorPalette palette, int revision, OutputStream out) throws IOException {
+        int size = palette.size();
+        int shades = palette.getShadeCount();
+        if (shades > MAX_SHADES) {
+            throw new IOException("Too many shades: " + shades);
+        }
+        byte[][] strings = new byte[size + shades][];
+        int poolLength = 0;
+        for (int i = 0; i < strings.length; i++) {
+            String value = (i < size) ? palette.getName(i) : palette.getShadeNameById(i - size);
+            strings[i] = value.getBytes(ColorPalette.UTF_8);
+            poolLength += strings[i].length;
+        }
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(revision);
+        data.writeInt(size);
+        data.writeInt(shades);
+        data.writeInt(poolLength);
+        for (int i = 0; i < size; i++) {
+            data.writeByte(palette.getRed(i));
+            data.writeByte(palette.getGreen(i));
+            data.writeByte(palette.getBlue(i));
+        }
+        for (int i = 0; i < size; i++) {
+            data.writeShort(palette.getShadeId(i));
+        }
+        for (int i = offsetsStart(size) - HEADER_SIZE - 5 * size; i > 0; i--) {
+            data.writeByte(0);
+        }
+        int offset = 0;
+        data.writeInt(offset);
+        for (byte[] string : strings) {
+            offset += string.length;
+            data.writeInt(offset);
+        }
+        for (byte[] string : strings) {
+            data.write(string);
+        }
+        data.flush();
+    }
+
+    /**
+     * Map a palette file read-only
+     *
+     * @param file     {@link java.io.File}
+     * @param revision {@link int} required revision, or {@link #ANY_REVISION}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @throws IOException if the file cannot be mapped, is malformed or has another revision
+     */
+    public static ColorPalette map(File file, int revision) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // The mapping stays valid after the channel is closed
+            return read(buffer, revision);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Read a palette from a buffer holding a palette file. Names are decoded from the buffer on
+     * demand, so it must not be modified afterwards.
+     *
+     * @param buffer   {@link java.nio.ByteBuffer} positioned at the start of the file data
+     * @param revision {@link int} required revision, or {@link #ANY_REVISION}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @throws IOException if the data is malformed or has another revision
+     */
+    public static ColorPalette read(ByteBuffer buffer, int revision) throws IOException {
+        ByteBuffer data = buffer.slice();
+        int length = data.remaining();
+        if (length < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a palette file");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported palette file version " + data.getInt(4));
+        }
+        if (revision != ANY_REVISION && data.getInt(8) != revision) {
+            throw new IOException("Palette revision " + data.getInt(8) + " does not match " + revision);
+        }
+        int size = data.getInt(12);
+        int shades = data.getInt(16);
+        int poolLength = data.getInt(20);
+        if (size < 0 || shades < 0 || shades > MAX_SHADES || poolLength < 0
+                || (size > 0 && shades == 0) || size > (length - HEADER_SIZE) / 9) {
+            throw new IOException("Corrupt palette header");
+        }
+        int offsetsStart = offsetsStart(size);
+        int poolStart = offsetsStart + 4 * (size + shades + 1);
+        if ((long) poolStart + poolLength != length || data.getInt(poolStart - 4) != poolLength) {
+            throw new IOException("Palette file length does not match its header");
+        }
+
+        byte[] red = new byte[size];
+        byte[] green = new byte[size];
+        byte[] blue = new byte[size];
+        int[] shade = new int[size];
+        for (int i = 0, p = HEADER_SIZE; i < size; i++) {
+            red[i] = data.get(p++);
+            green[i] = data.get(p++);
+            blue[i] = data.get(p++);
+        }
+        for (int i = 0, p = HEADER_SIZE + 3 * size; i < size; i++, p += 2) {
+            shade[i] = data.getShort(p) & 0xFFFF;
+            if (shade[i] >= shades) {
+                throw new IOException("Entry " + i + " has shade " + shade[i] + " of " + shades);
+            }
+        }
+        for (int i = 0, previous = 0; i <= size + shades; i++) {
+            int offset = data.getInt(offsetsStart + 4 * i);
+            if (offset < previous || offset > poolLength || (i == 0 && offset != 0)) {
+                throw new IOException("Corrupt string table at " + i);
+            }
+            previous = offset;
+        }
+        return new ColorPalette(red, green, blue, shade, shades, data, offsetsStart, poolStart);
+    }
+
+    /**
+     * Get the position of the string offsets, after the header, colors, shade ids and padding
+     *
+     * @param size {@link int} entry count
+     * @return {@link int}
+     */
+    private static int offsetsStart(int size) {
+        return (HEADER_SIZE + 5 * size + 3) & ~3;
+    }
+
+}
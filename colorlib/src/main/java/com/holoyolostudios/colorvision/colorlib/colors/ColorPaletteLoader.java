@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.colors;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * ColorPaletteLoader
+ * <p/>
+ * Reads a {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette} from text, so large
+ * palettes such as the XKCD survey, CSS or RAL colors can ship as assets or downloads instead of
+ * code. Each line holds one entry as comma separated values in one of two forms:
+ * <pre>
+ * shade,name,#RRGGBB
+ * shade,name,r,g,b
+ * </pre>
+ * Blank lines and lines starting with {@code ;} are skipped, and spaces around values are trimmed.
+ * Names must not contain commas. Entries keep their order, so when two entries share a color the
+ * first one wins.
+ * <p/>
+ *
+ * @author Daniel Velazco
+ * @author Martin Brabham
+ */
+public final class ColorPaletteLoader {
+
+    // Constants
+    private static final char COMMENT = ';';
+    private static final char SEPARATOR = ',';
+    private static final int MAX_FIELDS = 5;
+
+    /**
+     * Private constructor
+     */
+    private ColorPaletteLoader() {
+    }
+
+    /**
+     * Read a palette from a UTF-8 stream. The stream is closed when done.
+     *
+     * @param in {@link java.io.InputStream}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @throws IOException if the stream cannot be read or a line is malformed
+     */
+    public static ColorPalette load(InputStream in) throws IOException {
+        return load(new InputStreamReader(in, "UTF-8"));
+    }
+
+    /**
+     * Read a palette from a reader. The reader is closed when done.
+     *
+     * @param in {@link java.io.Reader}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette}
+     * @throws IOException if the reader fails or a line is malformed
+     */
+    public static ColorPalette load(Reader in) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        try {
+            ColorPalette.Builder builder = new ColorPalette.Builder();
+            String[] fields = new String[MAX_FIELDS];
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() == 0 || line.charAt(0) == COMMENT) {
+                    continue;
+                }
+                try {
+                    addEntry(builder, line, fields);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+            return builder.build();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parse one line and add it to the builder
+     *
+     * @param builder {@link com.holoyolostudios.colorvision.colorlib.colors.ColorPalette.Builder}
+     * @param line    {@link String} trimmed, non empty line
+     * @param fields  {@link String} scratch array of {@link #MAX_FIELDS} fields
+     */
+    private static void addEntry(ColorPalette.Builder builder, String line, String[] fields) {
+        int count = split(line, fields);
+        if (count == 3) {
+            String hex = fields[2];
+            if (hex.length() != 7 || hex.charAt(0) != '#') {
+                throw new IllegalArgumentException("Expected #RRGGBB but found \"" + hex + "\"");
+            }
+            int rgb = Integer.parseInt(hex.substring(1), 16);
+            builder.add(fields[0], fields[1], rgb >> 16, (rgb >> 8) & 0xFF, rgb & 0xFF);
+        } else if (count == 5) {
+            builder.add(fields[0], fields[1], Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    Integer.parseInt(fields[4]));
+        } else {
+            throw new IllegalArgumentException("Expected 3 or 5 fields but found " + count);
+        }
+    }
+
+    /**
+     * Split a line at commas into trimmed fields
+     *
+     * @param line   {@link String}
+     * @param fields {@link String} array receiving the fields
+     * @return {@link int} number of fields, more than the array length if the line has too many
+     */
+    private static int split(String line, String[] fields) {
+        int count = 0;
+        int start = 0;
+        while (true) {
+            int end = line.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = line.length();
+            }
+            if (count < fields.length) {
+                fields[count] = line.substring(start, end).trim();
+            }
+            count++;
+            if (end == line.length()) {
+                return count;
+            }
+            start = end + 1;
+        }
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.engine;
+
+import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
+import com.holoyolostudios.colorvision.colorlib.colors.ColorNameSession;
+import com.holoyolostudios.colorvision.colorlib.util.FrameAnalysisThread;
+import com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer;
+import com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool;
+import com.holoyolostudios.colorvision.colorlib.util.YuvLayout;
+
+import java.io.IOException;
+
+/**
+ * ColorDetectionEngine
+ * <p/>
+ * Headless color detection pipeline: takes frames from a
+ * {@link com.holoyolostudios.colorvision.colorlib.engine.FrameSource}, averages the sampled area
+ * in the middle of each frame, names the result and hands it to a
+ * {@link com.holoyolostudios.colorvision.colorlib.engine.ResultSink}. The engine owns the whole
+ * hot path: the {@link com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool} feeding
+ * the source, the {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalysisThread} that
+ * analyses the newest frame, the {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer}
+ * and the {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameSession}.
+ * <p/>
+ * Nothing on that path touches the Android framework, so the engine runs on a plain JVM with a
+ * synthetic source for profiling. Apps supply a camera backed source and a sink that forwards
+ * results to the UI.
+ * <p/>
+ * Call {@link #start(FrameSource)} and {@link #stop()} from one thread.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class ColorDetectionEngine {
+
+    // Members
+    private final ColorNameCache mColorNameCache;
+    private final ResultSink mSink;
+    private final PreviewBufferPool mBufferPool;
+    private FrameSource mSource = null;
+    private volatile FrameAnalysisThread mAnalysisThread = null;
+    private volatile FrameAnalyzer mFrameAnalyzer = null;
+    private volatile int mSampleHalfWidth = 0;
+    private volatile int mSampleHalfHeight = 0;
+    private ColorNameSession mColorNameSession = null;
+
+    // Counters of finished runs
+    private long mAnalyzedCount = 0;
+    private long mSupersededCount = 0;
+    private long mDroppedCount = 0;
+
+    private final FrameSource.Listener mFrameListener = new FrameSource.Listener() {
+        @Override
+        public void onFrameAvailable(byte[] frame) {
+            mBufferPool.onFrameDelivered(frame);
+            FrameAnalysisThread thread = mAnalysisThread;
+            if (thread == null || !thread.submit(frame)) {
+                mBufferPool.release(frame);
+            }
+        }
+    };
+    private final FrameAnalysisThread.Callback mAnalysisCallback = new FrameAnalysisThread.Callback() {
+        @Override
+        public void onAnalyzeFrame(byte[] frame) {
+            analyze(frame);
+        }
+
+        @Override
+        public void onFrameReleased(byte[] frame) {
+            mBufferPool.release(frame);
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param colorNameCache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}, or null
+     *                       to skip naming
+     * @param sink           {@link com.holoyolostudios.colorvision.colorlib.engine.ResultSink}
+     */
+    public ColorDetectionEngine(ColorNameCache colorNameCache, ResultSink sink) {
+        this(colorNameCache, sink, PreviewBufferPool.DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param colorNameCache {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache}, or null
+     *                       to skip naming
+     * @param sink           {@link com.holoyolostudios.colorvision.colorlib.engine.ResultSink}
+     * @param bufferCount    {@link Integer} number of frame buffers, at least 2
+     */
+    public ColorDetectionEngine(ColorNameCache colorNameCache, ResultSink sink, int bufferCount) {
+        mColorNameCache = colorNameCache;
+        mSink = sink;
+        mBufferPool = new PreviewBufferPool(bufferCount);
+    }
+
+    /**
+     * Set the size of the area averaged in the middle of each frame. Can be called at any time;
+     * the next analysed frame uses it. The area is clamped to the frame.
+     *
+     * @param width  {@link Integer} frame pixels
+     * @param height {@link Integer} frame pixels
+     */
+    public void setSampleSize(int width, int height) {
+        mSampleHalfWidth = width / 2;
+        mSampleHalfHeight = height / 2;
+    }
+
+    /**
+     * Open a source and start analysing its frames. A running source is stopped first. The frame
+     * buffers are kept across runs while the frame size stays the same.
+     *
+     * @param source {@link com.holoyolostudios.colorvision.colorlib.engine.FrameSource}
+     * @throws IOException if the source cannot be opened; the engine is stopped
+     */
+    public void start(FrameSource source) throws IOException {
+        stop();
+        source.open(mFrameListener);
+        FrameAnalysisThread thread = null;
+        boolean started = false;
+        try {
+            YuvLayout layout = source.getLayout();
+            mFrameAnalyzer = new FrameAnalyzer(layout);
+            mBufferPool.start(layout.getFrameSize(), source);
+            thread = new FrameAnalysisThread(mAnalysisCallback);
+            thread.start();
+            mAnalysisThread = thread;
+            mSource = source;
+            source.start();
+            started = true;
+        } finally {
+            if (!started) {
+
+                // Leave nothing open behind a failed start
+                mSource = null;
+                mAnalysisThread = null;
+                if (thread != null) {
+                    thread.quit();
+                }
+                mBufferPool.stop();
+                mBufferPool.releaseAll();
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Stop the source, wait for the frame in analysis and release the source. No result is
+     * delivered after this returns.
+     */
+    public void stop() {
+        FrameSource source = mSource;
+        if (source == null) {
+            return;
+        }
+        source.stop();
+        FrameAnalysisThread thread = mAnalysisThread;
+        mAnalysisThread = null;
+
+        // Waits for the frame in progress, so no buffer goes back to a closed source
+        thread.quit();
+        mAnalyzedCount += thread.getAnalyzedCount();
+        mSupersededCount += thread.getSupersededCount();
+        mDroppedCount += thread.getDroppedCount();
+        mBufferPool.stop();
+
+        // The worker kept the frames it still held, and nothing reads them any more
+        mBufferPool.releaseAll();
+        source.close();
+        mSource = null;
+    }
+
+    /**
+     * Check whether a source is running
+     *
+     * @return {@link Boolean}
+     */
+    public boolean isRunning() {
+        return mSource != null;
+    }
+
+    /**
+     * Get the number of frames analysed since the engine was created
+     *
+     * @return {@link Long}
+     */
+    public long getAnalyzedCount() {
+        FrameAnalysisThread thread = mAnalysisThread;
+        return mAnalyzedCount + ((thread != null) ? thread.getAnalyzedCount() : 0);
+    }
+
+    /**
+     * Get the number of frames replaced by a newer frame before they were analysed
+     *
+     * @return {@link Long}
+     */
+    public long getSupersededCount() {
+        FrameAnalysisThread thread = mAnalysisThread;
+        return mSupersededCount + ((thread != null) ? thread.getSupersededCount() : 0);
+    }
+
+    /**
+     * Get the number of frames dropped while stopping
+     *
+     * @return {@link Long}
+     */
+    public long getDroppedCount() {
+        FrameAnalysisThread thread = mAnalysisThread;
+        return mDroppedCount + ((thread != null) ? thread.getDroppedCount() : 0);
+    }
+
+    /**
+     * Get the number of frames delivered by sources
+     *
+     * @return {@link Long}
+     */
+    public long getDeliveredCount() {
+        return mBufferPool.getDeliveredCount();
+    }
+
+    /**
+     * Get the number of deliveries that left the source without a buffer to fill
+     *
+     * @return {@link Long}
+     */
+    public long getStarvedCount() {
+        return mBufferPool.getStarvedCount();
+    }
+
+    /**
+     * Get the number of frame buffers allocated since the engine was created
+     *
+     * @return {@link Long}
+     */
+    public long getAllocationCount() {
+        return mBufferPool.getAllocationCount();
+    }
+
+    /**
+     * Average and name a frame, then hand the result to the sink. Runs on the worker thread.
+     *
+     * @param frame {@link byte} array
+     */
+    private void analyze(byte[] frame) {
+        FrameAnalyzer analyzer = mFrameAnalyzer;
+        int centerX = analyzer.getWidth() / 2;
+        int centerY = analyzer.getHeight() / 2;
+
+        // The right column is inclusive and the bottom row exclusive
+        int halfWidth = clamp(mSampleHalfWidth, Math.min(centerX, analyzer.getWidth() - 1 - centerX));
+        int halfHeight = clamp(mSampleHalfHeight, Math.min(centerY, analyzer.getHeight() - centerY));
+        int color = analyzer.getAverageColorPacked(frame,
+                centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
+        mSink.onResult(color, getColorName(color));
+    }
+
+    /**
+     * Name a color with the worker's session. The session answers null while the cache is not
+     * initialized, so a cache destroyed under a running engine cannot stop the worker.
+     *
+     * @param color {@link Integer} packed ARGB
+     * @return {@link String}, or null
+     */
+    private String getColorName(int color) {
+        if (mColorNameCache == null) {
+            return null;
+        }
+        if (mColorNameSession == null) {
+            mColorNameSession = mColorNameCache.createSession();
+        }
+        return mColorNameSession.getColorName((color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+    }
+
+    /**
+     * Clamp a half size to [1, max], or 0 if the frame has no room for it
+     *
+     * @param half {@link Integer}
+     * @param max  {@link Integer}
+     * @return {@link Integer}
+     */
+    private static int clamp(int half, int max) {
+        if (half < 1) {
+            half = 1;
+        }
+        return (half > max) ? Math.max(max, 0) : half;
+    }
+
+}
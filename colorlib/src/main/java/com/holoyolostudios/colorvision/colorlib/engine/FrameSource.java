@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.engine;
+
+import com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool;
+import com.holoyolostudios.colorvision.colorlib.util.YuvLayout;
+
+import java.io.IOException;
+
+/**
+ * FrameSource
+ * <p/>
+ * Producer of YUV frames for a {@link com.holoyolostudios.colorvision.colorlib.engine.ColorDetectionEngine},
+ * such as the camera preview or a synthetic generator. The source fills buffers it is handed
+ * through {@link #addCallbackBuffer(byte[])} and gives each one back through
+ * {@link Listener#onFrameAvailable(byte[])}; it never allocates frames of its own.
+ * <p/>
+ * The engine drives a source in this order: {@link #open(Listener)}, {@link #start()},
+ * {@link #stop()}, {@link #close()}. Buffers are handed out between open and start and while
+ * frames flow.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public interface FrameSource extends PreviewBufferPool.BufferSink {
+
+    /**
+     * Listener
+     */
+    public interface Listener {
+
+        /**
+         * A buffer has been filled with a frame. Runs on the thread of the source.
+         *
+         * @param frame {@link byte} array previously handed to the source
+         */
+        public void onFrameAvailable(byte[] frame);
+
+    }
+
+    /**
+     * Prepare the source and settle the frame geometry
+     *
+     * @param listener {@link com.holoyolostudios.colorvision.colorlib.engine.FrameSource.Listener}
+     * @throws IOException if the source cannot be opened
+     */
+    public void open(Listener listener) throws IOException;
+
+    /**
+     * Get the layout of the frames, valid after {@link #open(Listener)}
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public YuvLayout getLayout();
+
+    /**
+     * Start delivering frames
+     */
+    public void start();
+
+    /**
+     * Stop delivering frames. No frame is delivered after this returns.
+     */
+    public void stop();
+
+    /**
+     * Release the source. Buffers it still holds are dropped.
+     */
+    public void close();
+
+}
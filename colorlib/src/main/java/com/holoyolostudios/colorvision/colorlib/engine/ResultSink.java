@@ -0,0 +1,40 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.engine;
+
+/**
+ * ResultSink
+ * <p/>
+ * Receives the results of a {@link com.holoyolostudios.colorvision.colorlib.engine.ColorDetectionEngine}
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public interface ResultSink {
+
+    /**
+     * A frame has been analysed. Runs on the engine's worker thread; hand the result on and
+     * return quickly, the next frame waits until this returns.
+     *
+     * @param color {@link Integer} average of the sampled area, packed ARGB
+     * @param name  {@link String} name of the closest palette color, or null while the
+     *              {@link com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache} is not ready
+     */
+    public void onResult(int color, String name);
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import android.util.Log;
+
+/**
+ * AndroidLogSink
+ * <p/>
+ * {@link com.holoyolostudios.colorvision.colorlib.util.LogSink} writing to logcat
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class AndroidLogSink implements LogSink {
+
+    /**
+     * Create a sink when the Android log is there, so the library stays silent rather than failing
+     * on a plain JVM
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.LogSink}, or null
+     */
+    public static LogSink createIfAvailable() {
+        try {
+            Class.forName("android.util.Log");
+            return new AndroidLogSink();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void debug(String tag, String message) {
+        Log.d(tag, message);
+    }
+
+    @Override
+    public void warning(String tag, String message, Throwable e) {
+        if (e != null) {
+            Log.w(tag, message, e);
+        } else {
+            Log.w(tag, message);
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * AveragingAccuracyReport
+ * <p/>
+ * Collects the per channel difference between {@link ColorAnalyzerUtil#AVERAGE_YUV} and
+ * {@link ColorAnalyzerUtil#AVERAGE_RGB} over a set of frames, so the averaging mode can be chosen
+ * per deployment from real camera data.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public class AveragingAccuracyReport {
+
+    // Members
+    private int mSamples = 0;
+    private final int[] mMaxError = new int[3];
+    private final long[] mTotalError = new long[3];
+
+    /**
+     * Average a region with both modes and record the difference
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer}
+     * @param y2  {@link Integer}
+     */
+    public void addSample(byte[] yuv, int x1, int y1, int x2, int y2) {
+        ColorAnalyzerUtil.RGBColor rgb = ColorAnalyzerUtil.getAverageColor(yuv, x1, y1, x2, y2,
+                ColorAnalyzerUtil.AVERAGE_RGB);
+        ColorAnalyzerUtil.RGBColor yuvColor = ColorAnalyzerUtil.getAverageColor(yuv, x1, y1, x2, y2,
+                ColorAnalyzerUtil.AVERAGE_YUV);
+        record(0, rgb.getRed(), yuvColor.getRed());
+        record(1, rgb.getGreen(), yuvColor.getGreen());
+        record(2, rgb.getBlue(), yuvColor.getBlue());
+        mSamples++;
+    }
+
+    /**
+     * Get the number of regions compared
+     *
+     * @return {@link Integer}
+     */
+    public int getSampleCount() {
+        return mSamples;
+    }
+
+    /**
+     * Get the largest absolute difference seen on any channel
+     *
+     * @return {@link Integer}
+     */
+    public int getMaxError() {
+        return Math.max(mMaxError[0], Math.max(mMaxError[1], mMaxError[2]));
+    }
+
+    /**
+     * Get the largest absolute difference seen on a channel
+     *
+     * @param channel {@link Integer} 0 red, 1 green, 2 blue
+     * @return {@link Integer}
+     */
+    public int getMaxError(int channel) {
+        return mMaxError[channel];
+    }
+
+    /**
+     * Get the mean absolute difference on a channel
+     *
+     * @param channel {@link Integer} 0 red, 1 green, 2 blue
+     * @return {@link Double}
+     */
+    public double getMeanError(int channel) {
+        return (mSamples == 0) ? 0.0d : (double) mTotalError[channel] / mSamples;
+    }
+
+    /**
+     * Clear all recorded samples
+     */
+    public void reset() {
+        mSamples = 0;
+        for (int i = 0; i < 3; i++) {
+            mMaxError[i] = 0;
+            mTotalError[i] = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AVERAGE_YUV vs AVERAGE_RGB over %d samples: "
+                        + "max R=%d G=%d B=%d, mean R=%.3f G=%.3f B=%.3f",
+                mSamples, mMaxError[0], mMaxError[1], mMaxError[2],
+                getMeanError(0), getMeanError(1), getMeanError(2));
+    }
+
+    /**
+     * Record the difference on a single channel
+     *
+     * @param channel  {@link Integer}
+     * @param expected {@link Integer}
+     * @param actual   {@link Integer}
+     */
+    private void record(int channel, int expected, int actual) {
+        int error = Math.abs(expected - actual);
+        if (error > mMaxError[channel]) {
+            mMaxError[channel] = error;
+        }
+        mTotalError[channel] += error;
+    }
+
+}
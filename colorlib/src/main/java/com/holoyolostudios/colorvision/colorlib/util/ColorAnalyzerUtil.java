@@ -16,13 +16,17 @@
  */
 package com.holoyolostudios.colorvision.colorlib.util;
 
-import android.graphics.Color;
+import java.nio.ByteBuffer;
 
 /**
  * ColorAnalyzerUtil
  * <p/>
  * Utility to handle detecting and averaging color from YUV data
  * <p/>
+ * The static API works on a single global geometry ({@link #FRAME_WIDTH} x {@link #FRAME_HEIGHT})
+ * and is kept for compatibility. Use a {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer}
+ * per stream to analyze several geometries at once or from several threads.
+ * <p/>
  *
  * @author Martin Brabham
  * @author Daniel Velazco
@@ -33,6 +37,107 @@ public class ColorAnalyzerUtil {
     public static int FRAME_WIDTH = 640;
     public static int FRAME_HEIGHT = 480;
 
+    // Conversion modes
+    public static final int CONVERSION_FIXED_POINT = 0;
+    public static final int CONVERSION_FLOAT = 1;
+    public static final int CONVERSION_LOOKUP_TABLE = 2;
+
+    // Averaging modes
+    public static final int AVERAGE_RGB = 0;
+    public static final int AVERAGE_YUV = 1;
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    // Fixed point coefficients, scaled by 2^FIXED_SHIFT
+    private static final int FIXED_SHIFT = 16;
+    private static final int FIXED_ROUND = 1 << (FIXED_SHIFT - 1);
+    private static final int FIXED_1_402 = 91881;
+    private static final int FIXED_0_344 = 22544;
+    private static final int FIXED_0_714 = 46793;
+    private static final int FIXED_1_772 = 116130;
+
+    // Members
+    private static int sConversionMode = CONVERSION_LOOKUP_TABLE;
+    private static int sAveragingMode = AVERAGE_RGB;
+    private static YuvLookupTable sLookupTable =
+            YuvLookupTable.getInstance(YuvLookupTable.STANDARD_BT601, YuvLookupTable.RANGE_FULL);
+    private static volatile FrameAnalyzer sAnalyzer = null;
+
+    /**
+     * Set the YUV to RGB conversion used by {@link #getColorAtPoint(byte[], int, int)} and
+     * {@link #getAverageColor(byte[], int, int, int, int)}.
+     * <p/>
+     * {@link #CONVERSION_LOOKUP_TABLE} is the default and decodes with the table set chosen through
+     * {@link #setColorStandard(int, int)}. {@link #CONVERSION_FIXED_POINT} and {@link #CONVERSION_FLOAT}
+     * always assume full range BT.601; {@link #CONVERSION_FLOAT} is kept as a reference so outputs can
+     * be compared. The paths differ by at most 1 per channel because the others round where the
+     * float path truncates.
+     *
+     * @param mode {@link Integer}
+     */
+    public static void setConversionMode(int mode) {
+        if (mode != CONVERSION_FIXED_POINT && mode != CONVERSION_FLOAT && mode != CONVERSION_LOOKUP_TABLE) {
+            throw new IllegalArgumentException("Unknown conversion mode: " + mode);
+        }
+        sConversionMode = mode;
+    }
+
+    /**
+     * Get the current YUV to RGB conversion mode
+     *
+     * @return {@link Integer}
+     */
+    public static int getConversionMode() {
+        return sConversionMode;
+    }
+
+    /**
+     * Set the averaging strategy used by {@link #getAverageColor(byte[], int, int, int, int)}.
+     * <p/>
+     * {@link #AVERAGE_RGB} is the default and converts every pixel before summing.
+     * {@link #AVERAGE_YUV} sums Y, U and V over the region and converts once. The conversion is
+     * affine, so the two only differ where the RGB path clamps individual pixels (saturated or
+     * near black areas) plus at most 2 per channel of rounding. Use
+     * {@link com.holoyolostudios.colorvision.colorlib.util.AveragingAccuracyReport} to measure the
+     * difference on real frames.
+     *
+     * @param mode {@link Integer}
+     */
+    public static void setAveragingMode(int mode) {
+        if (mode != AVERAGE_RGB && mode != AVERAGE_YUV) {
+            throw new IllegalArgumentException("Unknown averaging mode: " + mode);
+        }
+        sAveragingMode = mode;
+    }
+
+    /**
+     * Get the current averaging mode
+     *
+     * @return {@link Integer}
+     */
+    public static int getAveragingMode() {
+        return sAveragingMode;
+    }
+
+    /**
+     * Set the color standard and range the camera emits. Defaults to full range BT.601.
+     *
+     * @param standard {@link YuvLookupTable#STANDARD_BT601} or {@link YuvLookupTable#STANDARD_BT709}
+     * @param range    {@link YuvLookupTable#RANGE_FULL} or {@link YuvLookupTable#RANGE_LIMITED}
+     */
+    public static void setColorStandard(int standard, int range) {
+        sLookupTable = YuvLookupTable.getInstance(standard, range);
+    }
+
+    /**
+     * Get the lookup table set used by {@link #CONVERSION_LOOKUP_TABLE}
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     */
+    public static YuvLookupTable getLookupTable() {
+        return sLookupTable;
+    }
+
     /**
      * Get the average color of a rect area of a YUV420SPNV21 byte array
      *
@@ -44,38 +149,124 @@ public class ColorAnalyzerUtil {
      * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
      */
     public static RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2) {
+        return getAverageColor(yuv, x1, y1, x2, y2, sAveragingMode);
+    }
 
-        // Set variables
-        int i = 0;
-        int j = 0;
-        int k = 0;
-        int m = 0;
-
-        // Gather pixel data for the square
-        for (int i1 = x1; i1 <= x2; i1++) {
-            for (int i2 = y1; i2 < y2; i2++) {
-                int color = getColorAtPoint(yuv, i1, i2);
-                j += Color.red(color);
-                k += Color.green(color);
-                m += Color.blue(color);
-                i++;
-            }
-        }
+    /**
+     * Get the average color of a rect area of a YUV420SPNV21 byte array with the given
+     * averaging mode
+     *
+     * @param yuv  byte array
+     * @param x1   {@link Integer}
+     * @param y1   {@link Integer}
+     * @param x2   {@link Integer}
+     * @param y2   {@link Integer}
+     * @param mode {@link #AVERAGE_RGB} or {@link #AVERAGE_YUV}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public static RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2, int mode) {
+        return getAnalyzer().getAverageColor(yuv, x1, y1, x2, y2, mode);
+    }
+
+    /**
+     * Get the average color of a rect area of a YUV420SPNV21 byte array into a caller supplied
+     * {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}, without allocating
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer}
+     * @param y2  {@link Integer}
+     * @param out {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor} out
+     */
+    public static RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2, RGBColor out) {
+        return out.setPixel(getAverageColorPacked(yuv, x1, y1, x2, y2));
+    }
 
-        // Average data
-        j = j / i;
-        k = k / i;
-        m = m / i;
+    /**
+     * Get the average color of a rect area of a YUV420SPNV21 byte array as a packed ARGB pixel,
+     * without allocating
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer}
+     * @param y2  {@link Integer}
+     * @return {@link Integer}
+     */
+    public static int getAverageColorPacked(byte[] yuv, int x1, int y1, int x2, int y2) {
+        return getAnalyzer().getAverageColorPacked(yuv, x1, y1, x2, y2);
+    }
 
-        // Normalize data
-        j = (j > 255) ? 255 : j;
-        j = (j < 0) ? 0 : j;
-        k = (k > 255) ? 255 : k;
-        k = (k < 0) ? 0 : k;
-        m = (m > 255) ? 255 : m;
-        m = (m < 0) ? 0 : m;
+    /**
+     * Get the average color of a rect area of a YUV420SPNV21 frame held in a (typically direct)
+     * {@link java.nio.ByteBuffer}, read in place without copying
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer}
+     * @param y2  {@link Integer}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public static RGBColor getAverageColor(ByteBuffer yuv, int x1, int y1, int x2, int y2) {
+        return getAnalyzer().getAverageColor(yuv, x1, y1, x2, y2);
+    }
+
+    /**
+     * Packed, allocation free variant of {@link #getAverageColor(java.nio.ByteBuffer, int, int, int, int)}
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer}
+     * @param y2  {@link Integer}
+     * @return {@link Integer}
+     */
+    public static int getAverageColorPacked(ByteBuffer yuv, int x1, int y1, int x2, int y2) {
+        return getAnalyzer().getAverageColorPacked(yuv, x1, y1, x2, y2);
+    }
+
+    /**
+     * Get the average color of a rect area of a YUV420SPNV21 byte array from an adaptive subset
+     * of its pixels. See
+     * {@link FrameAnalyzer#getAverageColorSampled(byte[], int, int, int, int, float, int)}.
+     *
+     * @param yuv        byte array
+     * @param x1         {@link Integer}
+     * @param y1         {@link Integer}
+     * @param x2         {@link Integer}
+     * @param y2         {@link Integer}
+     * @param maxError   {@link Float} accepted standard error per channel, in 0-255 units
+     * @param maxSamples {@link Integer} pixel budget, 0 or less for none
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public static RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2, float maxError,
+                                           int maxSamples) {
+        return getAnalyzer().getAverageColorSampled(yuv, x1, y1, x2, y2, maxError, maxSamples);
+    }
 
-        return new RGBColor(j, k, m);
+    /**
+     * Get a {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer} matching
+     * {@link #FRAME_WIDTH}, {@link #FRAME_HEIGHT} and the current conversion settings. The
+     * analyzer is only rebuilt when one of those changes.
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer}
+     */
+    public static FrameAnalyzer getAnalyzer() {
+        FrameAnalyzer analyzer = sAnalyzer;
+        if (analyzer == null
+                || analyzer.getWidth() != FRAME_WIDTH
+                || analyzer.getHeight() != FRAME_HEIGHT
+                || analyzer.getConversionMode() != sConversionMode
+                || analyzer.getAveragingMode() != sAveragingMode
+                || analyzer.getLookupTable() != sLookupTable) {
+            analyzer = new FrameAnalyzer(FRAME_WIDTH, FRAME_HEIGHT, FRAME_WIDTH, sConversionMode, sLookupTable,
+                    sAveragingMode);
+            sAnalyzer = analyzer;
+        }
+        return analyzer;
     }
 
     /**
@@ -87,10 +278,91 @@ public class ColorAnalyzerUtil {
      * @return {@link Integer}
      */
     public static int getColorAtPoint(byte[] yuv, int x, int y) {
+        return getAnalyzer().getColorAtPoint(yuv, x, y);
+    }
+
+    /**
+     * Gets the RGB pixel at the given position in a YUV420SPNV21 {@link java.nio.ByteBuffer}
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x   {@link Integer}
+     * @param y   {@link Integer}
+     * @return {@link Integer}
+     */
+    public static int getColorAtPoint(ByteBuffer yuv, int x, int y) {
+        return getAnalyzer().getColorAtPoint(yuv, x, y);
+    }
+
+    /**
+     * Gets the RGB pixel at the given position in a YUV420SPNV21 byte array using only
+     * table lookups
+     *
+     * @param yuv   byte array
+     * @param x     {@link Integer}
+     * @param y     {@link Integer}
+     * @param table {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     * @return {@link Integer}
+     */
+    public static int getColorAtPointLookup(byte[] yuv, int x, int y, YuvLookupTable table) {
+        int i = (FRAME_WIDTH * FRAME_HEIGHT) + FRAME_WIDTH * (y >> 1) + (x & 0xFFFFFFFE);
+        return table.toRgb(0xFF & yuv[x + y * FRAME_WIDTH], 0xFF & yuv[(i + 1)], 0xFF & yuv[i]);
+    }
+
+    /**
+     * Gets the RGB pixel at the given position in a YUV420SPNV21 byte array using
+     * integer coefficients scaled by 2^16 and shift based rounding
+     *
+     * @param yuv byte array
+     * @param x   {@link Integer}
+     * @param y   {@link Integer}
+     * @return {@link Integer}
+     */
+    public static int getColorAtPointFixed(byte[] yuv, int x, int y) {
+        int i = (FRAME_WIDTH * FRAME_HEIGHT) + FRAME_WIDTH * (y >> 1) + (x & 0xFFFFFFFE);
+        return toRgbFixed(0xFF & yuv[x + y * FRAME_WIDTH], 0xFF & yuv[(i + 1)], 0xFF & yuv[i]);
+    }
+
+    /**
+     * Convert a single YUV sample to a packed ARGB pixel with the fixed point coefficients
+     *
+     * @param y {@link Integer} 0-255
+     * @param u {@link Integer} 0-255
+     * @param v {@link Integer} 0-255
+     * @return {@link Integer}
+     */
+    public static int toRgbFixed(int y, int u, int v) {
+        int j = (y << FIXED_SHIFT) + FIXED_ROUND;
+        int n = u - 128;
+        int i1 = v - 128;
+        int i2 = clamp((j + FIXED_1_402 * i1) >> FIXED_SHIFT);
+        int i3 = clamp((j - FIXED_0_344 * n - FIXED_0_714 * i1) >> FIXED_SHIFT);
+        int i4 = clamp((j + FIXED_1_772 * n) >> FIXED_SHIFT);
+        return 0xFF000000 | (i2 << 16) | (i3 << 8) | i4;
+    }
+
+    /**
+     * Gets the RGB pixel at the given position in a YUV420SPNV21 byte array using float
+     * coefficients. This is the reference conversion.
+     *
+     * @param yuv byte array
+     * @param x   {@link Integer}
+     * @param y   {@link Integer}
+     * @return {@link Integer}
+     */
+    public static int getColorAtPointFloat(byte[] yuv, int x, int y) {
         int i = (FRAME_WIDTH * FRAME_HEIGHT) + FRAME_WIDTH * (y >> 1) + (x & 0xFFFFFFFE);
-        int j = 0xFF & yuv[x + y * FRAME_WIDTH];
-        int k = 0xFF & yuv[(i + 1)];
-        int m = 0xFF & yuv[i];
+        return toRgbFloat(0xFF & yuv[x + y * FRAME_WIDTH], 0xFF & yuv[(i + 1)], 0xFF & yuv[i]);
+    }
+
+    /**
+     * Convert a single YUV sample to a packed ARGB pixel with the reference float coefficients
+     *
+     * @param j {@link Integer} Y 0-255
+     * @param k {@link Integer} U 0-255
+     * @param m {@link Integer} V 0-255
+     * @return {@link Integer}
+     */
+    public static int toRgbFloat(int j, int k, int m) {
         int n = k - 128;
         int i1 = m - 128;
         int i2 = (int) (j + 1.402f * i1);
@@ -102,7 +374,50 @@ public class ColorAnalyzerUtil {
         i3 = (i3 > 255) ? 255 : i3;
         i4 = (i4 < 0) ? 0 : i4;
         i4 = (i4 > 255) ? 255 : i4;
-        return Color.rgb(i2, i3, i4);
+        return 0xFF000000 | (i2 << 16) | (i3 << 8) | i4;
+    }
+
+    /**
+     * Convert a single YUV sample to a packed ARGB pixel with the current conversion mode
+     *
+     * @param y {@link Integer} 0-255
+     * @param u {@link Integer} 0-255
+     * @param v {@link Integer} 0-255
+     * @return {@link Integer}
+     */
+    public static int toRgb(int y, int u, int v) {
+        if (sConversionMode == CONVERSION_FLOAT) {
+            return toRgbFloat(y, u, v);
+        } else if (sConversionMode == CONVERSION_FIXED_POINT) {
+            return toRgbFixed(y, u, v);
+        }
+        return sLookupTable.toRgb(y, u, v);
+    }
+
+    /**
+     * Write the upper case RRGGBB hex code of a packed pixel into a buffer without allocating
+     *
+     * @param color  {@link Integer}
+     * @param buffer char array with room for 6 chars
+     * @param offset {@link Integer}
+     * @return {@link Integer} number of chars written
+     */
+    public static int writeHexCode(int color, char[] buffer, int offset) {
+        for (int i = 5; i >= 0; i--) {
+            buffer[offset + i] = HEX_DIGITS[color & 0xF];
+            color >>= 4;
+        }
+        return 6;
+    }
+
+    /**
+     * Clamp a channel value to [0, 255] with a single branch
+     *
+     * @param c {@link Integer}
+     * @return {@link Integer}
+     */
+    private static int clamp(int c) {
+        return ((c & ~0xFF) == 0) ? c : (~c >> 31) & 0xFF;
     }
 
     /**
@@ -149,13 +464,41 @@ public class ColorAnalyzerUtil {
             mBlue = b;
         }
 
+        /**
+         * Reuse this instance for another color. Clears the cached name and hex code.
+         *
+         * @param r {@link Integer}
+         * @param g {@link Integer}
+         * @param b {@link Integer}
+         * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor} this instance
+         */
+        public RGBColor set(int r, int g, int b) {
+            mAlpha = 0xFF;
+            mRed = r;
+            mGreen = g;
+            mBlue = b;
+            mColorName = null;
+            mHexCode = null;
+            return this;
+        }
+
+        /**
+         * Reuse this instance for a packed pixel. Clears the cached name and hex code.
+         *
+         * @param color {@link Integer}
+         * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor} this instance
+         */
+        public RGBColor setPixel(int color) {
+            return set((color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+        }
+
         /**
          * Get data of a single pixel
          *
          * @return {@link Integer}
          */
         public int getPixel() {
-            return Color.rgb(mRed, mGreen, mBlue);
+            return 0xFF000000 | (mRed << 16) | (mGreen << 8) | mBlue;
         }
 
         /**
@@ -204,17 +547,38 @@ public class ColorAnalyzerUtil {
         }
 
         /**
-         * Get the hex code representation of the RGB
+         * Set the color name
+         *
+         * @param colorName {@link String}
+         */
+        public void setName(String colorName) {
+            mColorName = colorName;
+        }
+
+        /**
+         * Get the upper case RRGGBB hex code, the same digits {@link #writeHexCode(char[], int)} writes
          *
          * @return {@link String}
          */
         public String getHexCode() {
             if (mHexCode == null) {
-                mHexCode = String.format("%06x", getPixel());
+                char[] hex = new char[6];
+                mHexCode = new String(hex, 0, writeHexCode(hex, 0));
             }
             return mHexCode;
         }
 
+        /**
+         * Write the upper case RRGGBB hex code into a buffer without allocating
+         *
+         * @param buffer char array with room for 6 chars
+         * @param offset {@link Integer}
+         * @return {@link Integer} number of chars written
+         */
+        public int writeHexCode(char[] buffer, int offset) {
+            return ColorAnalyzerUtil.writeHexCode(getPixel(), buffer, offset);
+        }
+
     }
 
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * DerivedTableCache
+ * <p/>
+ * Directory of tables derived from other data, such as lookup tables built from a palette. A
+ * table is stored under a name together with a format version and a 64 bit key, normally a
+ * content hash of everything the table was built from. On a later launch the file is memory
+ * mapped and handed back only if its version, key and checksum all match, so a stale or damaged
+ * table is never used; the caller rebuilds it and stores it again.
+ * <p/>
+ * Files are written to a temporary file, synced and renamed into place, so neither a reader nor a
+ * crash ever leaves a partial table, and storing a table removes the ones it replaces. Instances
+ * are thread safe.
+ * <p/>
+ * Each file holds a 24 byte big endian header followed by the payload:
+ * <pre>
+ *  0  magic "CVDT"
+ *  4  int  format version of the payload
+ *  8  long key
+ * 16  int  payload length
+ * 20  int  CRC32 of the payload
+ * </pre>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class DerivedTableCache {
+
+    // Constants
+    private static final int MAGIC = 0x43564454;
+    private static final int HEADER_SIZE = 24;
+    private static final String SUFFIX = ".tbl";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int CHUNK_SIZE = 8192;
+
+    // Members
+    private final File mDirectory;
+
+    /**
+     * Constructor
+     *
+     * @param directory {@link java.io.File} directory for the tables, created when needed
+     */
+    public DerivedTableCache(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Get the directory holding the tables
+     *
+     * @return {@link java.io.File}
+     */
+    public File getDirectory() {
+        return mDirectory;
+    }
+
+    /**
+     * Map a stored table. A file that does not match is deleted. The payload stays mapped after
+     * this returns, so callers can read it in place rather than copying it into the heap.
+     *
+     * @param name    {@link String} table name, letters, digits and underscores only
+     * @param version {@link Integer} format version the caller can read
+     * @param key     {@link Long} content hash of the inputs
+     * @return {@link java.nio.ByteBuffer} read-only payload, or null if the table has to be built
+     */
+    public ByteBuffer get(String name, int version, long key) {
+        File file = getFile(name, key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                ByteBuffer payload = checkTable(buffer, version, key);
+                if (payload != null) {
+                    return payload;
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+
+            // Unreadable, treat it like a mismatch
+        }
+        file.delete();
+        return null;
+    }
+
+    /**
+     * Store a table, replacing any table of the same name
+     *
+     * @param name    {@link String} table name, letters, digits and underscores only
+     * @param version {@link Integer} format version of the payload
+     * @param key     {@link Long} content hash of the inputs
+     * @param payload {@link java.nio.ByteBuffer} table data from its position to its limit
+     * @throws IOException if the table cannot be written
+     */
+    public synchronized void put(String name, int version, long key, ByteBuffer payload) throws IOException {
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Could not create " + mDirectory);
+        }
+        ByteBuffer data = payload.duplicate();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(version).putLong(key).putInt(data.remaining()).putInt(checksum(data));
+        header.flip();
+
+        File file = getFile(name, key);
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        boolean renamed = false;
+        try {
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+                FileChannel channel = out.getChannel();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+
+                // Make the data durable before the rename can make it visible
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(file)) {
+                throw new IOException("Could not rename " + temp + " to " + file);
+            }
+            renamed = true;
+        } finally {
+            if (!renamed) {
+                temp.delete();
+            }
+        }
+
+        // Drop tables of the same name built from other inputs
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            String prefix = name + "-";
+            for (File other : files) {
+                if (other.getName().startsWith(prefix) && !other.equals(file)) {
+                    other.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete every stored table
+     */
+    public synchronized void clear() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (fileName.endsWith(SUFFIX) || fileName.endsWith(SUFFIX + TEMP_SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the file of a table
+     *
+     * @param name {@link String}
+     * @param key  {@link Long}
+     * @return {@link java.io.File}
+     */
+    private File getFile(String name, long key) {
+        return new File(mDirectory, name + "-" + Long.toHexString(key) + SUFFIX);
+    }
+
+    /**
+     * Check the header and checksum of a mapped table
+     *
+     * @param buffer  {@link java.nio.ByteBuffer} whole file
+     * @param version {@link Integer}
+     * @param key     {@link Long}
+     * @return {@link java.nio.ByteBuffer} payload, or null on any mismatch
+     */
+    private static ByteBuffer checkTable(ByteBuffer buffer, int version, long key) {
+        if (buffer.remaining() < HEADER_SIZE
+                || buffer.getInt(0) != MAGIC
+                || buffer.getInt(4) != version
+                || buffer.getLong(8) != key
+                || buffer.getInt(16) != buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        buffer.position(HEADER_SIZE);
+        ByteBuffer payload = buffer.slice();
+        if (checksum(payload) != buffer.getInt(20)) {
+            return null;
+        }
+        return payload.asReadOnlyBuffer();
+    }
+
+    /**
+     * Compute the CRC32 of a buffer between its position and limit
+     *
+     * @param buffer {@link java.nio.ByteBuffer}, left unchanged
+     * @return {@link Integer}
+     */
+    private static int checksum(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate();
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        while (data.hasRemaining()) {
+            int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return (int) crc.getValue();
+    }
+
+}
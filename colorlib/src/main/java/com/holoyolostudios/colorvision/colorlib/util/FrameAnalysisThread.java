@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * FrameAnalysisThread
+ * <p/>
+ * Worker thread that analyses preview frames away from the thread delivering them. It holds at
+ * most one waiting frame: a frame submitted while another is still waiting replaces it, so the
+ * worker always moves on to the newest frame and a slow analysis never builds a backlog. The
+ * replaced frame is handed straight back through {@link Callback#onFrameReleased(byte[])} and
+ * counted as superseded.
+ * <p/>
+ * Give the camera buffers from a {@link com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool}
+ * and return each buffer to the pool from {@link Callback#onFrameReleased(byte[])}.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class FrameAnalysisThread extends Thread {
+
+    /**
+     * Callback
+     */
+    public interface Callback {
+
+        /**
+         * Analyse a frame. Runs on the worker thread.
+         *
+         * @param frame {@link byte} array
+         */
+        public void onAnalyzeFrame(byte[] frame);
+
+        /**
+         * The worker is done with a frame, either after analysing it or because a newer frame
+         * replaced it. Runs on the worker thread or on the submitting thread.
+         *
+         * @param frame {@link byte} array
+         */
+        public void onFrameReleased(byte[] frame);
+
+    }
+
+    // Members
+    private final Callback mCallback;
+    private final Object mLock = new Object();
+    private byte[] mPendingFrame = null;
+    private boolean mQuit = false;
+    private long mSubmittedCount = 0;
+    private long mAnalyzedCount = 0;
+    private long mSupersededCount = 0;
+    private long mDroppedCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param callback {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalysisThread.Callback}
+     */
+    public FrameAnalysisThread(Callback callback) {
+        super("FrameAnalysisThread");
+        mCallback = callback;
+    }
+
+    /**
+     * Hand a frame to the worker. Never blocks on an analysis.
+     *
+     * @param frame {@link byte} array, owned by the worker until it is released
+     * @return {@link Boolean} false if the worker has quit and the frame was dropped
+     */
+    public boolean submit(byte[] frame) {
+        byte[] superseded;
+        synchronized (mLock) {
+            mSubmittedCount++;
+            if (mQuit) {
+                mDroppedCount++;
+                return false;
+            }
+            superseded = mPendingFrame;
+            mPendingFrame = frame;
+            if (superseded != null) {
+                mSupersededCount++;
+            }
+            mLock.notify();
+        }
+        if (superseded != null) {
+            mCallback.onFrameReleased(superseded);
+        }
+        return true;
+    }
+
+    /**
+     * Stop the worker and wait for the frame it is analysing, if any. Frames still held by the
+     * worker are not released, and frames submitted afterwards are dropped, so the caller may tear
+     * down whatever the buffers are returned to right after this call.
+     */
+    public void quit() {
+        synchronized (mLock) {
+            mQuit = true;
+            if (mPendingFrame != null) {
+                mPendingFrame = null;
+                mDroppedCount++;
+            }
+            mLock.notify();
+        }
+        if (Thread.currentThread() != this) {
+            boolean interrupted = false;
+            while (isAlive()) {
+                try {
+                    join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            byte[] frame;
+            synchronized (mLock) {
+                while (mPendingFrame == null && !mQuit) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+
+                        // Only quit() stops the worker
+                    }
+                }
+                if (mQuit) {
+                    return;
+                }
+                frame = mPendingFrame;
+                mPendingFrame = null;
+            }
+            mCallback.onAnalyzeFrame(frame);
+            synchronized (mLock) {
+                mAnalyzedCount++;
+                if (mQuit) {
+                    return;
+                }
+            }
+            mCallback.onFrameReleased(frame);
+        }
+    }
+
+    /**
+     * Get the number of frames submitted
+     *
+     * @return {@link Long}
+     */
+    public long getSubmittedCount() {
+        synchronized (mLock) {
+            return mSubmittedCount;
+        }
+    }
+
+    /**
+     * Get the number of frames analysed
+     *
+     * @return {@link Long}
+     */
+    public long getAnalyzedCount() {
+        synchronized (mLock) {
+            return mAnalyzedCount;
+        }
+    }
+
+    /**
+     * Get the number of frames replaced by a newer frame before the worker got to them
+     *
+     * @return {@link Long}
+     */
+    public long getSupersededCount() {
+        synchronized (mLock) {
+            return mSupersededCount;
+        }
+    }
+
+    /**
+     * Get the number of frames dropped because the worker was quitting
+     *
+     * @return {@link Long}
+     */
+    public long getDroppedCount() {
+        synchronized (mLock) {
+            return mDroppedCount;
+        }
+    }
+
+}
@@ -0,0 +1,736 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * FrameAnalyzer
+ * <p/>
+ * Detects and averages color in frames of one fixed
+ * {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}. The averaging loops are
+ * specialised per layout, see {@link com.holoyolostudios.colorvision.colorlib.util.YuvKernel}.
+ * <p/>
+ * Instances are immutable and keep no state between calls, so one analyzer can be shared by any
+ * number of threads and several analyzers with different geometries can run side by side.
+ * <p/>
+ * Every entry point also takes {@link java.nio.ByteBuffer} planes. Those overloads read direct
+ * and memory mapped buffers in place with absolute gets, so camera2 planes never need copying into
+ * the heap. Offsets in the layout count from index 0 of each buffer. The buffer's position and limit
+ * are ignored and left untouched.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public class FrameAnalyzer {
+
+    // Constants
+    private static final int SAMPLED_START_DIVISOR = 4;
+    private static final int SAMPLED_MIN_SAMPLES = 16;
+
+    // Layout
+    private final YuvLayout mLayout;
+    private final YuvKernel mKernel;
+
+    // Conversion
+    private final int mConversionMode;
+    private final int mAveragingMode;
+    private final YuvLookupTable mLookupTable;
+
+    /**
+     * Constructor for a tightly packed NV21 frame with the default conversion
+     *
+     * @param width  {@link Integer}
+     * @param height {@link Integer}
+     */
+    public FrameAnalyzer(int width, int height) {
+        this(width, height, width);
+    }
+
+    /**
+     * Constructor for an NV21 frame with padded rows and the default conversion
+     *
+     * @param width     {@link Integer}
+     * @param height    {@link Integer}
+     * @param rowStride {@link Integer} bytes per row in both planes
+     */
+    public FrameAnalyzer(int width, int height, int rowStride) {
+        this(YuvLayout.nv21(width, height, rowStride));
+    }
+
+    /**
+     * Constructor for any frame layout with the default conversion
+     *
+     * @param layout {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public FrameAnalyzer(YuvLayout layout) {
+        this(layout, ColorAnalyzerUtil.CONVERSION_LOOKUP_TABLE,
+                YuvLookupTable.getInstance(YuvLookupTable.STANDARD_BT601, YuvLookupTable.RANGE_FULL),
+                ColorAnalyzerUtil.AVERAGE_RGB);
+    }
+
+    /**
+     * Constructor for an NV21 frame
+     *
+     * @param width          {@link Integer}
+     * @param height         {@link Integer}
+     * @param rowStride      {@link Integer} bytes per row in both planes
+     * @param conversionMode {@link Integer} one of the ColorAnalyzerUtil.CONVERSION_* modes
+     * @param lookupTable    {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     *                       used by {@link ColorAnalyzerUtil#CONVERSION_LOOKUP_TABLE}
+     * @param averagingMode  {@link Integer} one of the ColorAnalyzerUtil.AVERAGE_* modes
+     */
+    public FrameAnalyzer(int width, int height, int rowStride, int conversionMode, YuvLookupTable lookupTable,
+                         int averagingMode) {
+        this(YuvLayout.nv21(width, height, rowStride), conversionMode, lookupTable, averagingMode);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param layout         {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     * @param conversionMode {@link Integer} one of the ColorAnalyzerUtil.CONVERSION_* modes
+     * @param lookupTable    {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     *                       used by {@link ColorAnalyzerUtil#CONVERSION_LOOKUP_TABLE}
+     * @param averagingMode  {@link Integer} one of the ColorAnalyzerUtil.AVERAGE_* modes
+     */
+    public FrameAnalyzer(YuvLayout layout, int conversionMode, YuvLookupTable lookupTable, int averagingMode) {
+        if (layout == null) {
+            throw new IllegalArgumentException("A frame layout is required");
+        }
+        if (lookupTable == null) {
+            throw new IllegalArgumentException("A lookup table is required");
+        }
+        mLayout = layout;
+        mKernel = layout.createKernel();
+        mConversionMode = conversionMode;
+        mLookupTable = lookupTable;
+        mAveragingMode = averagingMode;
+    }
+
+    /**
+     * Get the frame layout
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public YuvLayout getLayout() {
+        return mLayout;
+    }
+
+    /**
+     * Get the frame width
+     *
+     * @return {@link Integer}
+     */
+    public int getWidth() {
+        return mLayout.getWidth();
+    }
+
+    /**
+     * Get the frame height
+     *
+     * @return {@link Integer}
+     */
+    public int getHeight() {
+        return mLayout.getHeight();
+    }
+
+    /**
+     * Get the number of bytes per Y row
+     *
+     * @return {@link Integer}
+     */
+    public int getRowStride() {
+        return mLayout.getYRowStride();
+    }
+
+    /**
+     * Get the number of bytes a single buffer frame of this layout occupies
+     *
+     * @return {@link Integer}
+     */
+    public int getFrameSize() {
+        return mLayout.getFrameSize();
+    }
+
+    /**
+     * Get the conversion mode
+     *
+     * @return {@link Integer}
+     */
+    public int getConversionMode() {
+        return mConversionMode;
+    }
+
+    /**
+     * Get the averaging mode
+     *
+     * @return {@link Integer}
+     */
+    public int getAveragingMode() {
+        return mAveragingMode;
+    }
+
+    /**
+     * Get the lookup table set
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     */
+    public YuvLookupTable getLookupTable() {
+        return mLookupTable;
+    }
+
+    /**
+     * Get the average color of a rect area with this analyzer's averaging mode
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer} inclusive
+     * @param y2  {@link Integer} exclusive
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2) {
+        return getAverageColor(yuv, x1, y1, x2, y2, mAveragingMode);
+    }
+
+    /**
+     * Get the average color of a rect area with the given averaging mode
+     *
+     * @param yuv  byte array
+     * @param x1   {@link Integer}
+     * @param y1   {@link Integer}
+     * @param x2   {@link Integer} inclusive
+     * @param y2   {@link Integer} exclusive
+     * @param mode {@link ColorAnalyzerUtil#AVERAGE_RGB} or {@link ColorAnalyzerUtil#AVERAGE_YUV}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2, int mode) {
+        return new ColorAnalyzerUtil.RGBColor(0, 0, 0).setPixel(getAverageColorPacked(yuv, x1, y1, x2, y2, mode));
+    }
+
+    /**
+     * Get the average color of a rect area of a single buffer frame with this analyzer's averaging mode
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer} inclusive
+     * @param y2  {@link Integer} exclusive
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColor(ByteBuffer yuv, int x1, int y1, int x2, int y2) {
+        return new ColorAnalyzerUtil.RGBColor(0, 0, 0).setPixel(getAverageColorPacked(yuv, x1, y1, x2, y2));
+    }
+
+    /**
+     * Get the average color of a rect area into a caller supplied
+     * {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}, without allocating
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer} inclusive
+     * @param y2  {@link Integer} exclusive
+     * @param out {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor} out
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColor(byte[] yuv, int x1, int y1, int x2, int y2,
+                                                      ColorAnalyzerUtil.RGBColor out) {
+        return out.setPixel(getAverageColorPacked(yuv, x1, y1, x2, y2, mAveragingMode));
+    }
+
+    /**
+     * Get the average color of a rect area with this analyzer's averaging mode as a packed ARGB
+     * pixel, without allocating
+     *
+     * @param yuv byte array
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer} inclusive
+     * @param y2  {@link Integer} exclusive
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(byte[] yuv, int x1, int y1, int x2, int y2) {
+        return getAverageColorPacked(yuv, x1, y1, x2, y2, mAveragingMode);
+    }
+
+    /**
+     * Get the average color of a rect area with the given averaging mode as a packed ARGB pixel,
+     * without allocating
+     *
+     * @param yuv  byte array
+     * @param x1   {@link Integer}
+     * @param y1   {@link Integer}
+     * @param x2   {@link Integer} inclusive
+     * @param y2   {@link Integer} exclusive
+     * @param mode {@link ColorAnalyzerUtil#AVERAGE_RGB} or {@link ColorAnalyzerUtil#AVERAGE_YUV}
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(byte[] yuv, int x1, int y1, int x2, int y2, int mode) {
+        return getAverageColorPacked(yuv, yuv, yuv, x1, y1, x2, y2, mode);
+    }
+
+    /**
+     * Get the average color of a rect area of a frame whose planes live in separate arrays, as a
+     * packed ARGB pixel
+     *
+     * @param yPlane byte array
+     * @param uPlane byte array
+     * @param vPlane byte array
+     * @param x1     {@link Integer}
+     * @param y1     {@link Integer}
+     * @param x2     {@link Integer} inclusive
+     * @param y2     {@link Integer} exclusive
+     * @param mode   {@link ColorAnalyzerUtil#AVERAGE_RGB} or {@link ColorAnalyzerUtil#AVERAGE_YUV}
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2, int y2,
+                                     int mode) {
+        if (mode == ColorAnalyzerUtil.AVERAGE_YUV) {
+            return toRgb(mKernel.averageYuv(yPlane, uPlane, vPlane, x1, y1, x2, y2));
+        } else if (mConversionMode == ColorAnalyzerUtil.CONVERSION_LOOKUP_TABLE) {
+            return mKernel.averageRgb(yPlane, uPlane, vPlane, x1, y1, x2, y2, mLookupTable);
+        }
+        return getAverageColorPerPixel(yPlane, uPlane, vPlane, x1, y1, x2, y2);
+    }
+
+    /**
+     * Get the average color of a rect area of a single buffer frame with this analyzer's averaging
+     * mode as a packed ARGB pixel
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x1  {@link Integer}
+     * @param y1  {@link Integer}
+     * @param x2  {@link Integer} inclusive
+     * @param y2  {@link Integer} exclusive
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(ByteBuffer yuv, int x1, int y1, int x2, int y2) {
+        return getAverageColorPacked(yuv, yuv, yuv, x1, y1, x2, y2, mAveragingMode);
+    }
+
+    /**
+     * Get the average color of a rect area of a frame whose planes live in separate buffers, as a
+     * packed ARGB pixel
+     *
+     * @param yPlane {@link java.nio.ByteBuffer}
+     * @param uPlane {@link java.nio.ByteBuffer}
+     * @param vPlane {@link java.nio.ByteBuffer}
+     * @param x1     {@link Integer}
+     * @param y1     {@link Integer}
+     * @param x2     {@link Integer} inclusive
+     * @param y2     {@link Integer} exclusive
+     * @param mode   {@link ColorAnalyzerUtil#AVERAGE_RGB} or {@link ColorAnalyzerUtil#AVERAGE_YUV}
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1,
+                                     int x2, int y2, int mode) {
+        if (mode == ColorAnalyzerUtil.AVERAGE_YUV) {
+            return toRgb(mKernel.averageYuv(yPlane, uPlane, vPlane, x1, y1, x2, y2));
+        } else if (mConversionMode == ColorAnalyzerUtil.CONVERSION_LOOKUP_TABLE) {
+            return mKernel.averageRgb(yPlane, uPlane, vPlane, x1, y1, x2, y2, mLookupTable);
+        }
+        return getAverageColorPerPixel(yPlane, uPlane, vPlane, x1, y1, x2, y2);
+    }
+
+    /**
+     * Get the average color of a rect area from a progressively refined subset of its pixels.
+     * <p/>
+     * Sampling starts on a sparse lattice and halves the lattice spacing while the standard error
+     * of the running mean is above {@code maxError} on any channel. It stops once the estimate has
+     * converged, the next lattice would take more than {@code maxSamples} pixels in total, or every
+     * pixel has been read. Lattices are always read whole, so every part of the area is weighted
+     * alike. A flat region converges after the first lattice; a textured one keeps refining up to
+     * the budget. With a bound of 0 and no budget the result equals the full average.
+     *
+     * @param yuv        byte array
+     * @param x1         {@link Integer}
+     * @param y1         {@link Integer}
+     * @param x2         {@link Integer} inclusive
+     * @param y2         {@link Integer} exclusive
+     * @param maxError   {@link Float} accepted standard error per channel, in 0-255 units
+     * @param maxSamples {@link Integer} pixel budget, 0 or less for none
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColorSampled(byte[] yuv, int x1, int y1, int x2, int y2,
+                                                             float maxError, int maxSamples) {
+        int color = getAverageColorSampledPacked(yuv, x1, y1, x2, y2, maxError, maxSamples);
+        return new ColorAnalyzerUtil.RGBColor(0, 0, 0).setPixel(color);
+    }
+
+    /**
+     * Packed, allocation free variant of
+     * {@link #getAverageColorSampled(byte[], int, int, int, int, float, int)}
+     *
+     * @param yuv        byte array
+     * @param x1         {@link Integer}
+     * @param y1         {@link Integer}
+     * @param x2         {@link Integer} inclusive
+     * @param y2         {@link Integer} exclusive
+     * @param maxError   {@link Float} accepted standard error per channel, in 0-255 units
+     * @param maxSamples {@link Integer} pixel budget, 0 or less for none
+     * @return {@link Integer}
+     */
+    public int getAverageColorSampledPacked(byte[] yuv, int x1, int y1, int x2, int y2, float maxError,
+                                            int maxSamples) {
+        return getAverageColorSampledPacked(yuv, yuv, yuv, x1, y1, x2, y2, maxError, maxSamples);
+    }
+
+    /**
+     * {@link #getAverageColorSampledPacked(byte[], int, int, int, int, float, int)} for a frame whose
+     * planes live in separate arrays
+     *
+     * @param yPlane     byte array
+     * @param uPlane     byte array
+     * @param vPlane     byte array
+     * @param x1         {@link Integer}
+     * @param y1         {@link Integer}
+     * @param x2         {@link Integer} inclusive
+     * @param y2         {@link Integer} exclusive
+     * @param maxError   {@link Float} accepted standard error per channel, in 0-255 units
+     * @param maxSamples {@link Integer} pixel budget, 0 or less for none
+     * @return {@link Integer}
+     */
+    public int getAverageColorSampledPacked(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1,
+                                            int x2, int y2, float maxError, int maxSamples) {
+
+        int width = x2 - x1 + 1;
+        int height = y2 - y1;
+        int budget = (maxSamples > 0) ? maxSamples : Integer.MAX_VALUE;
+        int step = firstStep(width, height, budget);
+
+        double maxVariance = (double) maxError * maxError;
+        int n = 0;
+        long r = 0, g = 0, b = 0;
+        long rr = 0, gg = 0, bb = 0;
+
+        // Each level visits only the lattice points that the coarser levels skipped
+        for (int coarse = 0; step > 0; coarse = step, step >>= 1) {
+
+            // Levels are read whole, so a budget never leaves the top rows over weighted
+            if (coarse != 0 && latticeSize(width, height, step) > budget) {
+                break;
+            }
+            for (int y = y1; y < y2; y += step) {
+                boolean onCoarseRow = (coarse != 0) && ((y - y1) % coarse == 0);
+                int xStart = onCoarseRow ? x1 + step : x1;
+                int xStep = onCoarseRow ? coarse : step;
+                for (int x = xStart; x <= x2; x += xStep) {
+                    int color = toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, x, y));
+                    int cr = (color >> 16) & 0xFF;
+                    int cg = (color >> 8) & 0xFF;
+                    int cb = color & 0xFF;
+                    r += cr;
+                    g += cg;
+                    b += cb;
+                    rr += cr * cr;
+                    gg += cg * cg;
+                    bb += cb * cb;
+                    n++;
+                }
+            }
+            if (n >= SAMPLED_MIN_SAMPLES
+                    && converged(r, rr, n, maxVariance)
+                    && converged(g, gg, n, maxVariance)
+                    && converged(b, bb, n, maxVariance)) {
+                break;
+            }
+        }
+
+        return mean(r, g, b, n);
+    }
+
+    /**
+     * {@link #getAverageColorSampledPacked(byte[], int, int, int, int, float, int)} for a frame whose
+     * planes live in separate buffers
+     *
+     * @param yPlane     {@link java.nio.ByteBuffer}
+     * @param uPlane     {@link java.nio.ByteBuffer}
+     * @param vPlane     {@link java.nio.ByteBuffer}
+     * @param x1         {@link Integer}
+     * @param y1         {@link Integer}
+     * @param x2         {@link Integer} inclusive
+     * @param y2         {@link Integer} exclusive
+     * @param maxError   {@link Float} accepted standard error per channel, in 0-255 units
+     * @param maxSamples {@link Integer} pixel budget, 0 or less for none
+     * @return {@link Integer}
+     */
+    public int getAverageColorSampledPacked(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1,
+                                            int y1, int x2, int y2, float maxError, int maxSamples) {
+
+        int width = x2 - x1 + 1;
+        int height = y2 - y1;
+        int budget = (maxSamples > 0) ? maxSamples : Integer.MAX_VALUE;
+        int step = firstStep(width, height, budget);
+
+        double maxVariance = (double) maxError * maxError;
+        int n = 0;
+        long r = 0, g = 0, b = 0;
+        long rr = 0, gg = 0, bb = 0;
+
+        // Each level visits only the lattice points that the coarser levels skipped
+        for (int coarse = 0; step > 0; coarse = step, step >>= 1) {
+
+            // Levels are read whole, so a budget never leaves the top rows over weighted
+            if (coarse != 0 && latticeSize(width, height, step) > budget) {
+                break;
+            }
+            for (int y = y1; y < y2; y += step) {
+                boolean onCoarseRow = (coarse != 0) && ((y - y1) % coarse == 0);
+                int xStart = onCoarseRow ? x1 + step : x1;
+                int xStep = onCoarseRow ? coarse : step;
+                for (int x = xStart; x <= x2; x += xStep) {
+                    int color = toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, x, y));
+                    int cr = (color >> 16) & 0xFF;
+                    int cg = (color >> 8) & 0xFF;
+                    int cb = color & 0xFF;
+                    r += cr;
+                    g += cg;
+                    b += cb;
+                    rr += cr * cr;
+                    gg += cg * cg;
+                    bb += cb * cb;
+                    n++;
+                }
+            }
+            if (n >= SAMPLED_MIN_SAMPLES
+                    && converged(r, rr, n, maxVariance)
+                    && converged(g, gg, n, maxVariance)
+                    && converged(b, bb, n, maxVariance)) {
+                break;
+            }
+        }
+
+        return mean(r, g, b, n);
+    }
+
+    /**
+     * Pick the spacing of the first lattice: roughly MIN_SAMPLES points, coarser until it fits the
+     * budget. Thin areas can need a step longer than their short side, so the search runs up to
+     * the long side, where the lattice is a single point.
+     *
+     * @param width  {@link Integer}
+     * @param height {@link Integer}
+     * @param budget {@link Integer} pixel budget, at least 1
+     * @return {@link Integer} lattice spacing
+     */
+    static int firstStep(int width, int height, int budget) {
+        int span = Math.min(width, height);
+        int longest = Math.max(width, height);
+        int step = 1;
+        while ((step << 1) * SAMPLED_START_DIVISOR <= span) {
+            step <<= 1;
+        }
+        while (step < longest && latticeSize(width, height, step) > budget) {
+            step <<= 1;
+        }
+        return step;
+    }
+
+    /**
+     * Count the points of a lattice anchored at the top left corner of an area
+     *
+     * @param width  {@link Integer}
+     * @param height {@link Integer}
+     * @param step   {@link Integer} lattice spacing
+     * @return {@link Integer}
+     */
+    static int latticeSize(int width, int height, int step) {
+        return ((width + step - 1) / step) * ((height + step - 1) / step);
+    }
+
+    /**
+     * Check whether the squared standard error of a channel mean is within the bound
+     *
+     * @param sum         {@link Long} sum of samples
+     * @param sumSquares  {@link Long} sum of squared samples
+     * @param n           {@link Integer} sample count
+     * @param maxVariance {@link Double} squared error bound
+     * @return {@link Boolean}
+     */
+    private static boolean converged(long sum, long sumSquares, int n, double maxVariance) {
+
+        // var / n <= maxError^2, with var = (n * sq - sum^2) / (n * (n - 1))
+        double spread = (double) n * sumSquares - (double) sum * sum;
+        return spread <= maxVariance * n * n * (n - 1);
+    }
+
+    /**
+     * Pack the mean of channel sums
+     *
+     * @param r {@link Long}
+     * @param g {@link Long}
+     * @param b {@link Long}
+     * @param n {@link Integer}
+     * @return {@link Integer} packed ARGB
+     */
+    private static int mean(long r, long g, long b, int n) {
+        return 0xFF000000 | ((int) (r / n) << 16) | ((int) (g / n) << 8) | (int) (b / n);
+    }
+
+    /**
+     * Gets the RGB pixel at the given position
+     *
+     * @param yuv byte array
+     * @param x   {@link Integer}
+     * @param y   {@link Integer}
+     * @return {@link Integer}
+     */
+    public int getColorAtPoint(byte[] yuv, int x, int y) {
+        return toRgb(mKernel.pointYuv(yuv, yuv, yuv, x, y));
+    }
+
+    /**
+     * Gets the RGB pixel at the given position of a single buffer frame
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     * @param x   {@link Integer}
+     * @param y   {@link Integer}
+     * @return {@link Integer}
+     */
+    public int getColorAtPoint(ByteBuffer yuv, int x, int y) {
+        return toRgb(mKernel.pointYuv(yuv, yuv, yuv, x, y));
+    }
+
+    /**
+     * Gets the RGB pixel at the given position of a frame whose planes live in separate arrays
+     *
+     * @param yPlane byte array
+     * @param uPlane byte array
+     * @param vPlane byte array
+     * @param x      {@link Integer}
+     * @param y      {@link Integer}
+     * @return {@link Integer}
+     */
+    public int getColorAtPoint(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x, int y) {
+        return toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, x, y));
+    }
+
+    /**
+     * Gets the RGB pixel at the given position of a frame whose planes live in separate buffers
+     *
+     * @param yPlane {@link java.nio.ByteBuffer}
+     * @param uPlane {@link java.nio.ByteBuffer}
+     * @param vPlane {@link java.nio.ByteBuffer}
+     * @param x      {@link Integer}
+     * @param y      {@link Integer}
+     * @return {@link Integer}
+     */
+    public int getColorAtPoint(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x, int y) {
+        return toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, x, y));
+    }
+
+    /**
+     * Convert a single YUV sample to a packed ARGB pixel with this analyzer's conversion mode
+     *
+     * @param y {@link Integer} 0-255
+     * @param u {@link Integer} 0-255
+     * @param v {@link Integer} 0-255
+     * @return {@link Integer}
+     */
+    public int toRgb(int y, int u, int v) {
+        if (mConversionMode == ColorAnalyzerUtil.CONVERSION_FLOAT) {
+            return ColorAnalyzerUtil.toRgbFloat(y, u, v);
+        } else if (mConversionMode == ColorAnalyzerUtil.CONVERSION_FIXED_POINT) {
+            return ColorAnalyzerUtil.toRgbFixed(y, u, v);
+        }
+        return mLookupTable.toRgb(y, u, v);
+    }
+
+    /**
+     * Convert samples packed as Y << 16 | U << 8 | V
+     *
+     * @param yuv {@link Integer}
+     * @return {@link Integer} packed ARGB
+     */
+    private int toRgb(int yuv) {
+        return toRgb(yuv >>> 16, (yuv >> 8) & 0xFF, yuv & 0xFF);
+    }
+
+    /**
+     * Per pixel loop, used by the float and fixed point conversions
+     *
+     * @param yPlane byte array
+     * @param uPlane byte array
+     * @param vPlane byte array
+     * @param x1     {@link Integer}
+     * @param y1     {@link Integer}
+     * @param x2     {@link Integer}
+     * @param y2     {@link Integer}
+     * @return {@link Integer} packed ARGB
+     */
+    private int getAverageColorPerPixel(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2,
+                                        int y2) {
+
+        // Set variables
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        int m = 0;
+
+        // Gather pixel data for the square, row by row
+        for (int i2 = y1; i2 < y2; i2++) {
+            for (int i1 = x1; i1 <= x2; i1++) {
+                int color = toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, i1, i2));
+                j += (color >> 16) & 0xFF;
+                k += (color >> 8) & 0xFF;
+                m += color & 0xFF;
+                i++;
+            }
+        }
+
+        return YuvKernel.average(j, k, m, i);
+    }
+
+    /**
+     * Per pixel loop over buffers
+     *
+     * @param yPlane {@link java.nio.ByteBuffer}
+     * @param uPlane {@link java.nio.ByteBuffer}
+     * @param vPlane {@link java.nio.ByteBuffer}
+     * @param x1     {@link Integer}
+     * @param y1     {@link Integer}
+     * @param x2     {@link Integer}
+     * @param y2     {@link Integer}
+     * @return {@link Integer} packed ARGB
+     */
+    private int getAverageColorPerPixel(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1,
+                                        int x2, int y2) {
+
+        // Set variables
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        int m = 0;
+
+        // Gather pixel data for the square, row by row
+        for (int i2 = y1; i2 < y2; i2++) {
+            for (int i1 = x1; i1 <= x2; i1++) {
+                int color = toRgb(mKernel.pointYuv(yPlane, uPlane, vPlane, i1, i2));
+                j += (color >> 16) & 0xFF;
+                k += (color >> 8) & 0xFF;
+                m += color & 0xFF;
+                i++;
+            }
+        }
+
+        return YuvKernel.average(j, k, m, i);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * LogSink
+ * <p/>
+ * Receives the library's diagnostic messages. The library logs through
+ * {@link com.holoyolostudios.colorvision.colorlib.util.AndroidLogSink} when it runs on Android;
+ * install another sink to route the messages elsewhere or to run the library on a plain JVM.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public interface LogSink {
+
+    /**
+     * Log a debug message
+     *
+     * @param tag     {@link String}
+     * @param message {@link String}
+     */
+    public void debug(String tag, String message);
+
+    /**
+     * Log a warning
+     *
+     * @param tag     {@link String}
+     * @param message {@link String}
+     * @param e       {@link Throwable} cause, or null
+     */
+    public void warning(String tag, String message, Throwable e);
+
+}
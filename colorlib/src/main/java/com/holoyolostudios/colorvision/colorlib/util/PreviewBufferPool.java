@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * PreviewBufferPool
+ * <p/>
+ * Fixed ring of preview callback buffers shared between the camera and the analysis code. The
+ * buffers are sized from the negotiated preview frame size and kept across preview restarts and
+ * surface changes; they are only reallocated when the frame size changes.
+ * <p/>
+ * The pool tracks which buffers the camera holds and which have been delivered and not yet
+ * released. Delivered buffers are never handed back to the camera before they are released, not
+ * even by a restart, so the camera cannot fill a buffer that is still being read.
+ * <p/>
+ * A delivery that leaves the camera without a buffer to fill next means the camera will drop
+ * frames until one is released, and is counted as starvation. A
+ * {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalysisThread} holds at most one
+ * frame in analysis and one waiting, and releases the waiting one only after the next delivery
+ * has replaced it. {@link #DEFAULT_BUFFER_COUNT} leaves room for those two, the frame being
+ * delivered and one more, so the camera keeps a buffer even when analysis is slow.
+ * <p/>
+ * Thread safe; buffers can be delivered on the camera thread and released from any thread.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class PreviewBufferPool {
+
+    /**
+     * Receives buffers to fill, normally by calling
+     * {@code android.hardware.Camera.addCallbackBuffer(byte[])}
+     */
+    public interface BufferSink {
+
+        /**
+         * Hand a buffer to the producer
+         *
+         * @param buffer {@link byte} array
+         */
+        public void addCallbackBuffer(byte[] buffer);
+
+    }
+
+    // Constants
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    // Buffer states
+    private static final int STATE_IDLE = 0;
+    private static final int STATE_QUEUED = 1;
+    private static final int STATE_DELIVERED = 2;
+
+    // Members
+    private final Object mLock = new Object();
+    private final byte[][] mBuffers;
+    private final int[] mStates;
+    private int mFrameSize = 0;
+    private BufferSink mSink = null;
+    private int mQueuedCount = 0;
+    private long mDeliveredCount = 0;
+    private long mStarvedCount = 0;
+    private long mAllocationCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param count {@link Integer} number of buffers, at least 2
+     */
+    public PreviewBufferPool(int count) {
+        if (count < 2) {
+            throw new IllegalArgumentException("A pool needs at least 2 buffers");
+        }
+        mBuffers = new byte[count][];
+        mStates = new int[count];
+    }
+
+    /**
+     * Size the buffers for a frame and hand them to the sink. Buffers of the right size are
+     * reused; those delivered and not yet released are handed over when they are released.
+     *
+     * @param frameSize {@link Integer} bytes per preview frame
+     * @param sink      {@link com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool.BufferSink}
+     */
+    public void start(int frameSize, BufferSink sink) {
+        synchronized (mLock) {
+            if (frameSize != mFrameSize) {
+
+                // Buffers still being read drop out of the ring and are ignored when released
+                for (int i = 0; i < mBuffers.length; i++) {
+                    mBuffers[i] = new byte[frameSize];
+                    mStates[i] = STATE_IDLE;
+                    mAllocationCount++;
+                }
+                mFrameSize = frameSize;
+            }
+            mSink = sink;
+            mQueuedCount = 0;
+            for (int i = 0; i < mBuffers.length; i++) {
+                if (mStates[i] != STATE_DELIVERED) {
+                    mStates[i] = STATE_QUEUED;
+                    mQueuedCount++;
+                    sink.addCallbackBuffer(mBuffers[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop handing buffers to the sink, which drops the buffers it holds. Buffers released
+     * afterwards stay in the pool until the next
+     * {@link #start(int, com.holoyolostudios.colorvision.colorlib.util.PreviewBufferPool.BufferSink)}.
+     */
+    public void stop() {
+        synchronized (mLock) {
+            mSink = null;
+            mQueuedCount = 0;
+            for (int i = 0; i < mStates.length; i++) {
+                if (mStates[i] == STATE_QUEUED) {
+                    mStates[i] = STATE_IDLE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Take back every delivered buffer that was never released. Only call this once nothing
+     * reads the buffers any more, for example after
+     * {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalysisThread#quit()}, which keeps
+     * the frames it still holds.
+     */
+    public void releaseAll() {
+        synchronized (mLock) {
+            for (int i = 0; i < mStates.length; i++) {
+                if (mStates[i] == STATE_DELIVERED) {
+                    release(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that the producer delivered a filled buffer. Call first thing in the frame callback.
+     *
+     * @param buffer {@link byte} array that was delivered
+     */
+    public void onFrameDelivered(byte[] buffer) {
+        synchronized (mLock) {
+            int index = indexOf(buffer);
+            if (mSink == null || index < 0 || mStates[index] != STATE_QUEUED) {
+                return;
+            }
+            mStates[index] = STATE_DELIVERED;
+            mDeliveredCount++;
+            mQueuedCount--;
+            if (mQueuedCount == 0) {
+                mStarvedCount++;
+            }
+        }
+    }
+
+    /**
+     * Give a buffer back to the producer once its frame has been analysed or dropped
+     *
+     * @param buffer {@link byte} array from this pool
+     */
+    public void release(byte[] buffer) {
+        synchronized (mLock) {
+            int index = indexOf(buffer);
+            if (index >= 0 && mStates[index] == STATE_DELIVERED) {
+                release(index);
+            }
+        }
+    }
+
+    /**
+     * Hand a delivered buffer back to the sink, or keep it in the pool while stopped. Call with
+     * the lock held.
+     *
+     * @param index {@link Integer} buffer index
+     */
+    private void release(int index) {
+        if (mSink != null) {
+            mStates[index] = STATE_QUEUED;
+            mQueuedCount++;
+            mSink.addCallbackBuffer(mBuffers[index]);
+        } else {
+            mStates[index] = STATE_IDLE;
+        }
+    }
+
+    /**
+     * Get the number of buffers
+     *
+     * @return {@link Integer}
+     */
+    public int getBufferCount() {
+        return mBuffers.length;
+    }
+
+    /**
+     * Get the size of each buffer
+     *
+     * @return {@link Integer} bytes, 0 before the first start
+     */
+    public int getFrameSize() {
+        synchronized (mLock) {
+            return mFrameSize;
+        }
+    }
+
+    /**
+     * Get the number of buffers the producer currently holds
+     *
+     * @return {@link Integer}
+     */
+    public int getQueuedCount() {
+        synchronized (mLock) {
+            return mQueuedCount;
+        }
+    }
+
+    /**
+     * Get the number of frames delivered since the pool was created
+     *
+     * @return {@link Long}
+     */
+    public long getDeliveredCount() {
+        synchronized (mLock) {
+            return mDeliveredCount;
+        }
+    }
+
+    /**
+     * Get the number of deliveries that left the producer without a buffer to fill
+     *
+     * @return {@link Long}
+     */
+    public long getStarvedCount() {
+        synchronized (mLock) {
+            return mStarvedCount;
+        }
+    }
+
+    /**
+     * Get the number of buffers allocated since the pool was created
+     *
+     * @return {@link Long}
+     */
+    public long getAllocationCount() {
+        synchronized (mLock) {
+            return mAllocationCount;
+        }
+    }
+
+    /**
+     * Find a buffer in the current ring
+     *
+     * @param buffer {@link byte} array
+     * @return {@link Integer} index, or -1 if the buffer is not pooled
+     */
+    private int indexOf(byte[] buffer) {
+        for (int i = 0; i < mBuffers.length; i++) {
+            if (mBuffers[i] == buffer) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * StridedKernel
+ * <p/>
+ * Kernel for any other chroma pixel stride. Slower than the specialised kernels because the
+ * stride is not a constant.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+final class StridedKernel extends YuvKernel {
+
+    // Layout
+    private final int mChromaPixelStride;
+
+    /**
+     * Constructor
+     *
+     * @param layout {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    StridedKernel(YuvLayout layout) {
+        super(layout);
+        mChromaPixelStride = layout.getChromaPixelStride();
+    }
+
+    @Override
+    int averageRgb(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2, int y2,
+                   YuvLookupTable table) {
+        final int yStride = mYRowStride;
+        final int[] yTab = table.mY;
+        final int[] rvTab = table.mRv;
+        final int[] guTab = table.mGu;
+        final int[] gvTab = table.mGv;
+        final int[] buTab = table.mBu;
+        final int[] clamp = YuvLookupTable.CLAMP;
+        final int shift = YuvLookupTable.SHIFT;
+
+        int r = 0;
+        int g = 0;
+        int b = 0;
+
+        for (int y = y1; y < y2; ) {
+            boolean pair = ((y & 1) == 0) && (y + 1 < y2);
+            int row0 = mYOffset + y * yStride;
+            int row1 = row0 + yStride;
+            int c = mChromaRowStride * (y >> 1) + (x1 >> 1) * mChromaPixelStride;
+            for (int x = x1; x <= x2; c += mChromaPixelStride) {
+                int v = 0xFF & vPlane[mVOffset + c];
+                int u = 0xFF & uPlane[mUOffset + c];
+                int rv = rvTab[v];
+                int guv = guTab[u] + gvTab[v];
+                int bu = buTab[u];
+                int xEnd = (((x & 1) == 0) && (x + 1 <= x2)) ? x + 2 : x + 1;
+                for (; x < xEnd; x++) {
+                    int yy = yTab[0xFF & yPlane[row0 + x]];
+                    r += clamp[(yy + rv) >> shift];
+                    g += clamp[(yy + guv) >> shift];
+                    b += clamp[(yy + bu) >> shift];
+                    if (pair) {
+                        yy = yTab[0xFF & yPlane[row1 + x]];
+                        r += clamp[(yy + rv) >> shift];
+                        g += clamp[(yy + guv) >> shift];
+                        b += clamp[(yy + bu) >> shift];
+                    }
+                }
+            }
+            y += pair ? 2 : 1;
+        }
+
+        return average(r, g, b, (x2 - x1 + 1) * (y2 - y1));
+    }
+
+    @Override
+    int averageYuv(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2, int y2) {
+        final int yStride = mYRowStride;
+
+        int ySum = 0;
+        int uSum = 0;
+        int vSum = 0;
+
+        for (int y = y1; y < y2; ) {
+            boolean pair = ((y & 1) == 0) && (y + 1 < y2);
+            int row0 = mYOffset + y * yStride;
+            int row1 = row0 + yStride;
+            int c = mChromaRowStride * (y >> 1) + (x1 >> 1) * mChromaPixelStride;
+            for (int x = x1; x <= x2; c += mChromaPixelStride) {
+                int xEnd = (((x & 1) == 0) && (x + 1 <= x2)) ? x + 2 : x + 1;
+                int n = pair ? (xEnd - x) << 1 : xEnd - x;
+                vSum += (0xFF & vPlane[mVOffset + c]) * n;
+                uSum += (0xFF & uPlane[mUOffset + c]) * n;
+                for (; x < xEnd; x++) {
+                    ySum += 0xFF & yPlane[row0 + x];
+                    if (pair) {
+                        ySum += 0xFF & yPlane[row1 + x];
+                    }
+                }
+            }
+            y += pair ? 2 : 1;
+        }
+
+        return means(ySum, uSum, vSum, (x2 - x1 + 1) * (y2 - y1));
+    }
+
+    @Override
+    int pointYuv(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x, int y) {
+        int c = mChromaRowStride * (y >> 1) + (x >> 1) * mChromaPixelStride;
+        return ((0xFF & yPlane[mYOffset + y * mYRowStride + x]) << 16)
+                | ((0xFF & uPlane[mUOffset + c]) << 8)
+                | (0xFF & vPlane[mVOffset + c]);
+    }
+
+    @Override
+    int averageRgb(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1, int x2, int y2,
+                   YuvLookupTable table) {
+        final int yStride = mYRowStride;
+        final int[] yTab = table.mY;
+        final int[] rvTab = table.mRv;
+        final int[] guTab = table.mGu;
+        final int[] gvTab = table.mGv;
+        final int[] buTab = table.mBu;
+        final int[] clamp = YuvLookupTable.CLAMP;
+        final int shift = YuvLookupTable.SHIFT;
+
+        int r = 0;
+        int g = 0;
+        int b = 0;
+
+        for (int y = y1; y < y2; ) {
+            boolean pair = ((y & 1) == 0) && (y + 1 < y2);
+            int row0 = mYOffset + y * yStride;
+            int row1 = row0 + yStride;
+            int c = mChromaRowStride * (y >> 1) + (x1 >> 1) * mChromaPixelStride;
+            for (int x = x1; x <= x2; c += mChromaPixelStride) {
+                int v = 0xFF & vPlane.get(mVOffset + c);
+                int u = 0xFF & uPlane.get(mUOffset + c);
+                int rv = rvTab[v];
+                int guv = guTab[u] + gvTab[v];
+                int bu = buTab[u];
+                int xEnd = (((x & 1) == 0) && (x + 1 <= x2)) ? x + 2 : x + 1;
+                for (; x < xEnd; x++) {
+                    int yy = yTab[0xFF & yPlane.get(row0 + x)];
+                    r += clamp[(yy + rv) >> shift];
+                    g += clamp[(yy + guv) >> shift];
+                    b += clamp[(yy + bu) >> shift];
+                    if (pair) {
+                        yy = yTab[0xFF & yPlane.get(row1 + x)];
+                        r += clamp[(yy + rv) >> shift];
+                        g += clamp[(yy + guv) >> shift];
+                        b += clamp[(yy + bu) >> shift];
+                    }
+                }
+            }
+            y += pair ? 2 : 1;
+        }
+
+        return average(r, g, b, (x2 - x1 + 1) * (y2 - y1));
+    }
+
+    @Override
+    int averageYuv(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1, int x2, int y2) {
+        final int yStride = mYRowStride;
+
+        int ySum = 0;
+        int uSum = 0;
+        int vSum = 0;
+
+        for (int y = y1; y < y2; ) {
+            boolean pair = ((y & 1) == 0) && (y + 1 < y2);
+            int row0 = mYOffset + y * yStride;
+            int row1 = row0 + yStride;
+            int c = mChromaRowStride * (y >> 1) + (x1 >> 1) * mChromaPixelStride;
+            for (int x = x1; x <= x2; c += mChromaPixelStride) {
+                int xEnd = (((x & 1) == 0) && (x + 1 <= x2)) ? x + 2 : x + 1;
+                int n = pair ? (xEnd - x) << 1 : xEnd - x;
+                vSum += (0xFF & vPlane.get(mVOffset + c)) * n;
+                uSum += (0xFF & uPlane.get(mUOffset + c)) * n;
+                for (; x < xEnd; x++) {
+                    ySum += 0xFF & yPlane.get(row0 + x);
+                    if (pair) {
+                        ySum += 0xFF & yPlane.get(row1 + x);
+                    }
+                }
+            }
+            y += pair ? 2 : 1;
+        }
+
+        return means(ySum, uSum, vSum, (x2 - x1 + 1) * (y2 - y1));
+    }
+
+    @Override
+    int pointYuv(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x, int y) {
+        int c = mChromaRowStride * (y >> 1) + (x >> 1) * mChromaPixelStride;
+        return ((0xFF & yPlane.get(mYOffset + y * mYRowStride + x)) << 16)
+                | ((0xFF & uPlane.get(mUOffset + c)) << 8)
+                | (0xFF & vPlane.get(mVOffset + c));
+    }
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * SummedAreaTable
+ * <p/>
+ * Integral image over the Y plane and the subsampled U and V planes of a frame described by a
+ * {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}. After a single
+ * {@link #build(byte[])} pass the average color of any rectangle costs four lookups per
+ * plane and one conversion, however large the rectangle is.
+ * <p/>
+ * Averages are taken in the YUV domain, so results match
+ * {@link FrameAnalyzer#getAverageColor(byte[], int, int, int, int, int)} with
+ * {@link ColorAnalyzerUtil#AVERAGE_YUV}. Sums are kept in ints and wrap; a rectangle's sum is still
+ * exact as long as it covers fewer than 8 million pixels.
+ * <p/>
+ * A table is reused from frame to frame. It must not be queried while it is being rebuilt.
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public class SummedAreaTable {
+
+    // Members
+    private final FrameAnalyzer mAnalyzer;
+    private final int mLumaStride;
+    private final int mChromaStride;
+    private final int[] mY;
+    private final int[] mU;
+    private final int[] mV;
+
+    /**
+     * Constructor
+     *
+     * @param analyzer {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer} describing the
+     *                 frame geometry and conversion
+     */
+    public SummedAreaTable(FrameAnalyzer analyzer) {
+        mAnalyzer = analyzer;
+        int width = analyzer.getWidth();
+        int height = analyzer.getHeight();
+        int chromaWidth = (width + 1) >> 1;
+        int chromaHeight = (height + 1) >> 1;
+        mLumaStride = width + 1;
+        mChromaStride = chromaWidth + 1;
+        mY = new int[mLumaStride * (height + 1)];
+        mU = new int[mChromaStride * (chromaHeight + 1)];
+        mV = new int[mChromaStride * (chromaHeight + 1)];
+    }
+
+    /**
+     * Get the analyzer this table was built for
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.FrameAnalyzer}
+     */
+    public FrameAnalyzer getAnalyzer() {
+        return mAnalyzer;
+    }
+
+    /**
+     * Build the table from a single buffer frame in one pass over each plane
+     *
+     * @param yuv byte array
+     */
+    public void build(byte[] yuv) {
+        build(yuv, yuv, yuv);
+    }
+
+    /**
+     * Build the table from a frame whose planes live in separate arrays
+     *
+     * @param yPlane byte array
+     * @param uPlane byte array
+     * @param vPlane byte array
+     */
+    public void build(byte[] yPlane, byte[] uPlane, byte[] vPlane) {
+        final YuvLayout layout = mAnalyzer.getLayout();
+        final int width = layout.getWidth();
+        final int height = layout.getHeight();
+        final int yOffset = layout.getYOffset();
+        final int stride = layout.getYRowStride();
+        final int uOffset = layout.getUOffset();
+        final int vOffset = layout.getVOffset();
+        final int chromaStride = layout.getChromaRowStride();
+        final int pixelStride = layout.getChromaPixelStride();
+        final int chromaWidth = (width + 1) >> 1;
+        final int chromaHeight = (height + 1) >> 1;
+        final int[] sy = mY;
+        final int[] su = mU;
+        final int[] sv = mV;
+
+        // Luma
+        int ls = mLumaStride;
+        for (int y = 0; y < height; y++) {
+            int row = yOffset + y * stride;
+            int above = y * ls + 1;
+            int out = above + ls;
+            int sum = 0;
+            for (int x = 0; x < width; x++) {
+                sum += 0xFF & yPlane[row + x];
+                sy[out + x] = sy[above + x] + sum;
+            }
+        }
+
+        // Chroma
+        int cs = mChromaStride;
+        for (int y = 0; y < chromaHeight; y++) {
+            int row = y * chromaStride;
+            int above = y * cs + 1;
+            int out = above + cs;
+            int uSum = 0;
+            int vSum = 0;
+            for (int x = 0; x < chromaWidth; x++) {
+                int c = row + x * pixelStride;
+                uSum += 0xFF & uPlane[uOffset + c];
+                vSum += 0xFF & vPlane[vOffset + c];
+                su[out + x] = su[above + x] + uSum;
+                sv[out + x] = sv[above + x] + vSum;
+            }
+        }
+    }
+
+    /**
+     * Build the table from a single buffer frame held in a {@link java.nio.ByteBuffer}
+     *
+     * @param yuv {@link java.nio.ByteBuffer}
+     */
+    public void build(ByteBuffer yuv) {
+        build(yuv, yuv, yuv);
+    }
+
+    /**
+     * Build the table from a frame whose planes live in separate buffers, read in place
+     *
+     * @param yPlane {@link java.nio.ByteBuffer}
+     * @param uPlane {@link java.nio.ByteBuffer}
+     * @param vPlane {@link java.nio.ByteBuffer}
+     */
+    public void build(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane) {
+        final YuvLayout layout = mAnalyzer.getLayout();
+        final int width = layout.getWidth();
+        final int height = layout.getHeight();
+        final int yOffset = layout.getYOffset();
+        final int stride = layout.getYRowStride();
+        final int uOffset = layout.getUOffset();
+        final int vOffset = layout.getVOffset();
+        final int chromaStride = layout.getChromaRowStride();
+        final int pixelStride = layout.getChromaPixelStride();
+        final int chromaWidth = (width + 1) >> 1;
+        final int chromaHeight = (height + 1) >> 1;
+        final int[] sy = mY;
+        final int[] su = mU;
+        final int[] sv = mV;
+
+        // Luma
+        int ls = mLumaStride;
+        for (int y = 0; y < height; y++) {
+            int row = yOffset + y * stride;
+            int above = y * ls + 1;
+            int out = above + ls;
+            int sum = 0;
+            for (int x = 0; x < width; x++) {
+                sum += 0xFF & yPlane.get(row + x);
+                sy[out + x] = sy[above + x] + sum;
+            }
+        }
+
+        // Chroma
+        int cs = mChromaStride;
+        for (int y = 0; y < chromaHeight; y++) {
+            int row = y * chromaStride;
+            int above = y * cs + 1;
+            int out = above + cs;
+            int uSum = 0;
+            int vSum = 0;
+            for (int x = 0; x < chromaWidth; x++) {
+                int c = row + x * pixelStride;
+                uSum += 0xFF & uPlane.get(uOffset + c);
+                vSum += 0xFF & vPlane.get(vOffset + c);
+                su[out + x] = su[above + x] + uSum;
+                sv[out + x] = sv[above + x] + vSum;
+            }
+        }
+    }
+
+    /**
+     * Get the average color of a rect area of the last built frame
+     *
+     * @param x1 {@link Integer}
+     * @param y1 {@link Integer}
+     * @param x2 {@link Integer} inclusive
+     * @param y2 {@link Integer} exclusive
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil.RGBColor}
+     */
+    public ColorAnalyzerUtil.RGBColor getAverageColor(int x1, int y1, int x2, int y2) {
+        return new ColorAnalyzerUtil.RGBColor(0, 0, 0).setPixel(getAverageColorPacked(x1, y1, x2, y2));
+    }
+
+    /**
+     * Get the average color of a rect area of the last built frame as a packed ARGB pixel
+     *
+     * @param x1 {@link Integer}
+     * @param y1 {@link Integer}
+     * @param x2 {@link Integer} inclusive
+     * @param y2 {@link Integer} exclusive
+     * @return {@link Integer}
+     */
+    public int getAverageColorPacked(int x1, int y1, int x2, int y2) {
+        int yl = y2 - 1;
+        int count = (x2 - x1 + 1) * (y2 - y1);
+        int ySum = sum(mY, mLumaStride, x1, y1, x2, yl);
+
+        // Every chroma sample covers a 2x2 block. Blocks on an odd edge of the rect only count
+        // once in that direction, so the weight of a block is (1 + fullX) * (1 + fullY) where
+        // fullX and fullY say whether the block lies completely inside the rect in that direction.
+        // Expanding the product gives four rectangle sums.
+        int bx1 = x1 >> 1;
+        int bx2 = x2 >> 1;
+        int by1 = y1 >> 1;
+        int by2 = yl >> 1;
+        int fx1 = (x1 + 1) >> 1;
+        int fx2 = (x2 - 1) >> 1;
+        int fy1 = (y1 + 1) >> 1;
+        int fy2 = (yl - 1) >> 1;
+        int uSum = sum(mU, mChromaStride, bx1, by1, bx2, by2)
+                + sum(mU, mChromaStride, fx1, by1, fx2, by2)
+                + sum(mU, mChromaStride, bx1, fy1, bx2, fy2)
+                + sum(mU, mChromaStride, fx1, fy1, fx2, fy2);
+        int vSum = sum(mV, mChromaStride, bx1, by1, bx2, by2)
+                + sum(mV, mChromaStride, fx1, by1, fx2, by2)
+                + sum(mV, mChromaStride, bx1, fy1, bx2, fy2)
+                + sum(mV, mChromaStride, fx1, fy1, fx2, fy2);
+
+        int half = count >> 1;
+        return mAnalyzer.toRgb((ySum + half) / count, (uSum + half) / count, (vSum + half) / count);
+    }
+
+    /**
+     * Sum of an inclusive rectangle of a table, or 0 if the rectangle is empty
+     *
+     * @param table  {@link Integer} array
+     * @param stride {@link Integer}
+     * @param x1     {@link Integer}
+     * @param y1     {@link Integer}
+     * @param x2     {@link Integer}
+     * @param y2     {@link Integer}
+     * @return {@link Integer}
+     */
+    private static int sum(int[] table, int stride, int x1, int y1, int x2, int y2) {
+        if (x2 < x1 || y2 < y1) {
+            return 0;
+        }
+        int top = y1 * stride;
+        int bottom = (y2 + 1) * stride;
+        return table[bottom + x2 + 1] - table[bottom + x1] - table[top + x2 + 1] + table[top + x1];
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * YuvKernel
+ * <p/>
+ * Averaging and sampling loops for one {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}.
+ * Each subclass is final and bakes in its chroma pixel stride, so the per pixel work has no
+ * virtual calls or stride multiplies and the JIT can inline it; the only dispatch is once per call.
+ * <p/>
+ * Regions are x1..x2 inclusive and y1..y2 exclusive.
+ * <p/>
+ * The ByteBuffer variants read with absolute gets, so they work on direct and memory mapped
+ * buffers in place and ignore the buffers' position and limit.
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+abstract class YuvKernel {
+
+    // Layout
+    final int mYOffset;
+    final int mYRowStride;
+    final int mUOffset;
+    final int mVOffset;
+    final int mChromaRowStride;
+
+    /**
+     * Constructor
+     *
+     * @param layout {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    YuvKernel(YuvLayout layout) {
+        mYOffset = layout.getYOffset();
+        mYRowStride = layout.getYRowStride();
+        mUOffset = layout.getUOffset();
+        mVOffset = layout.getVOffset();
+        mChromaRowStride = layout.getChromaRowStride();
+    }
+
+    /**
+     * Average a region in RGB, decoding each chroma sample once per 2x2 block with a lookup table
+     *
+     * @return {@link Integer} packed ARGB
+     */
+    abstract int averageRgb(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2, int y2,
+                            YuvLookupTable table);
+
+    /**
+     * Average a region in the YUV domain
+     *
+     * @return {@link Integer} rounded means packed as Y << 16 | U << 8 | V
+     */
+    abstract int averageYuv(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x1, int y1, int x2, int y2);
+
+    /**
+     * Read the samples of a single pixel
+     *
+     * @return {@link Integer} packed as Y << 16 | U << 8 | V
+     */
+    abstract int pointYuv(byte[] yPlane, byte[] uPlane, byte[] vPlane, int x, int y);
+
+    /**
+     * {@link #averageRgb(byte[], byte[], byte[], int, int, int, int, YuvLookupTable)} over buffers
+     *
+     * @return {@link Integer} packed ARGB
+     */
+    abstract int averageRgb(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1, int x2,
+                            int y2, YuvLookupTable table);
+
+    /**
+     * {@link #averageYuv(byte[], byte[], byte[], int, int, int, int)} over buffers
+     *
+     * @return {@link Integer} rounded means packed as Y << 16 | U << 8 | V
+     */
+    abstract int averageYuv(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x1, int y1, int x2,
+                            int y2);
+
+    /**
+     * {@link #pointYuv(byte[], byte[], byte[], int, int)} over buffers
+     *
+     * @return {@link Integer} packed as Y << 16 | U << 8 | V
+     */
+    abstract int pointYuv(ByteBuffer yPlane, ByteBuffer uPlane, ByteBuffer vPlane, int x, int y);
+
+    /**
+     * Average and normalize channel sums
+     *
+     * @param j {@link Integer} red sum
+     * @param k {@link Integer} green sum
+     * @param m {@link Integer} blue sum
+     * @param i {@link Integer} pixel count
+     * @return {@link Integer} packed ARGB
+     */
+    static int average(int j, int k, int m, int i) {
+
+        // Average data
+        j = j / i;
+        k = k / i;
+        m = m / i;
+
+        // Normalize data
+        j = (j > 255) ? 255 : j;
+        j = (j < 0) ? 0 : j;
+        k = (k > 255) ? 255 : k;
+        k = (k < 0) ? 0 : k;
+        m = (m > 255) ? 255 : m;
+        m = (m < 0) ? 0 : m;
+
+        return 0xFF000000 | (j << 16) | (k << 8) | m;
+    }
+
+    /**
+     * Round channel sums to their means
+     *
+     * @param ySum  {@link Integer}
+     * @param uSum  {@link Integer}
+     * @param vSum  {@link Integer}
+     * @param count {@link Integer}
+     * @return {@link Integer} packed as Y << 16 | U << 8 | V
+     */
+    static int means(int ySum, int uSum, int vSum, int count) {
+        int half = count >> 1;
+        return (((ySum + half) / count) << 16) | (((uSum + half) / count) << 8) | ((vSum + half) / count);
+    }
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * YuvLayout
+ * <p/>
+ * Describes where the Y, U and V samples of a 4:2:0 frame live: plane offsets, row strides and
+ * the distance between neighbouring chroma samples. Covers NV21, NV12, I420, YV12 and the
+ * YUV_420_888 planes handed out by camera2.
+ * <p/>
+ * The Y sample of pixel (x, y) is at {@code yOffset + y * yRowStride + x}, the U sample at
+ * {@code uOffset + (y / 2) * chromaRowStride + (x / 2) * chromaPixelStride} and likewise for V.
+ * Offsets index into the array or buffer holding that plane; single buffer formats use the same
+ * array for all three planes.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class YuvLayout {
+
+    // Formats
+    public static final int FORMAT_NV21 = 0;
+    public static final int FORMAT_NV12 = 1;
+    public static final int FORMAT_I420 = 2;
+    public static final int FORMAT_YV12 = 3;
+    public static final int FORMAT_YUV_420_888 = 4;
+
+    // Members
+    private final int mFormat;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mYOffset;
+    private final int mYRowStride;
+    private final int mUOffset;
+    private final int mVOffset;
+    private final int mChromaRowStride;
+    private final int mChromaPixelStride;
+
+    /**
+     * Constructor
+     *
+     * @param format            {@link Integer} one of the FORMAT_* constants
+     * @param width             {@link Integer}
+     * @param height            {@link Integer}
+     * @param yOffset           {@link Integer}
+     * @param yRowStride        {@link Integer}
+     * @param uOffset           {@link Integer}
+     * @param vOffset           {@link Integer}
+     * @param chromaRowStride   {@link Integer}
+     * @param chromaPixelStride {@link Integer}
+     */
+    public YuvLayout(int format, int width, int height, int yOffset, int yRowStride, int uOffset, int vOffset,
+                     int chromaRowStride, int chromaPixelStride) {
+        if (width <= 0 || height <= 0 || yRowStride < width || chromaRowStride <= 0 || chromaPixelStride <= 0) {
+            throw new IllegalArgumentException("Invalid frame layout: " + width + "x" + height
+                    + " stride " + yRowStride + "/" + chromaRowStride + "/" + chromaPixelStride);
+        }
+        mFormat = format;
+        mWidth = width;
+        mHeight = height;
+        mYOffset = yOffset;
+        mYRowStride = yRowStride;
+        mUOffset = uOffset;
+        mVOffset = vOffset;
+        mChromaRowStride = chromaRowStride;
+        mChromaPixelStride = chromaPixelStride;
+    }
+
+    /**
+     * NV21 (YUV420SP, V before U), the camera preview default
+     *
+     * @param width     {@link Integer}
+     * @param height    {@link Integer}
+     * @param rowStride {@link Integer} bytes per row in both planes
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public static YuvLayout nv21(int width, int height, int rowStride) {
+        int chroma = rowStride * height;
+        return new YuvLayout(FORMAT_NV21, width, height, 0, rowStride, chroma + 1, chroma, rowStride, 2);
+    }
+
+    /**
+     * NV12 (YUV420SP, U before V)
+     *
+     * @param width     {@link Integer}
+     * @param height    {@link Integer}
+     * @param rowStride {@link Integer} bytes per row in both planes
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public static YuvLayout nv12(int width, int height, int rowStride) {
+        int chroma = rowStride * height;
+        return new YuvLayout(FORMAT_NV12, width, height, 0, rowStride, chroma, chroma + 1, rowStride, 2);
+    }
+
+    /**
+     * I420 (YUV420P, U plane before V plane)
+     *
+     * @param width           {@link Integer}
+     * @param height          {@link Integer}
+     * @param rowStride       {@link Integer} bytes per Y row
+     * @param chromaRowStride {@link Integer} bytes per U and V row
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public static YuvLayout i420(int width, int height, int rowStride, int chromaRowStride) {
+        int u = rowStride * height;
+        int v = u + chromaRowStride * ((height + 1) >> 1);
+        return new YuvLayout(FORMAT_I420, width, height, 0, rowStride, u, v, chromaRowStride, 1);
+    }
+
+    /**
+     * YV12 (YUV420P, V plane before U plane). Android aligns both strides to 16 bytes.
+     *
+     * @param width           {@link Integer}
+     * @param height          {@link Integer}
+     * @param rowStride       {@link Integer} bytes per Y row
+     * @param chromaRowStride {@link Integer} bytes per U and V row
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public static YuvLayout yv12(int width, int height, int rowStride, int chromaRowStride) {
+        int v = rowStride * height;
+        int u = v + chromaRowStride * ((height + 1) >> 1);
+        return new YuvLayout(FORMAT_YV12, width, height, 0, rowStride, u, v, chromaRowStride, 1);
+    }
+
+    /**
+     * YUV_420_888 as delivered by camera2, with each plane in its own buffer starting at 0
+     *
+     * @param width             {@link Integer}
+     * @param height            {@link Integer}
+     * @param yRowStride        {@link Integer} row stride of plane 0
+     * @param chromaRowStride   {@link Integer} row stride of planes 1 and 2
+     * @param chromaPixelStride {@link Integer} pixel stride of planes 1 and 2
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLayout}
+     */
+    public static YuvLayout yuv420888(int width, int height, int yRowStride, int chromaRowStride,
+                                      int chromaPixelStride) {
+        return new YuvLayout(FORMAT_YUV_420_888, width, height, 0, yRowStride, 0, 0, chromaRowStride,
+                chromaPixelStride);
+    }
+
+    /**
+     * Get the format
+     *
+     * @return {@link Integer}
+     */
+    public int getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * Get the frame width
+     *
+     * @return {@link Integer}
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Get the frame height
+     *
+     * @return {@link Integer}
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Get the offset of the first Y sample
+     *
+     * @return {@link Integer}
+     */
+    public int getYOffset() {
+        return mYOffset;
+    }
+
+    /**
+     * Get the number of bytes per Y row
+     *
+     * @return {@link Integer}
+     */
+    public int getYRowStride() {
+        return mYRowStride;
+    }
+
+    /**
+     * Get the offset of the first U sample
+     *
+     * @return {@link Integer}
+     */
+    public int getUOffset() {
+        return mUOffset;
+    }
+
+    /**
+     * Get the offset of the first V sample
+     *
+     * @return {@link Integer}
+     */
+    public int getVOffset() {
+        return mVOffset;
+    }
+
+    /**
+     * Get the number of bytes per chroma row
+     *
+     * @return {@link Integer}
+     */
+    public int getChromaRowStride() {
+        return mChromaRowStride;
+    }
+
+    /**
+     * Get the number of bytes between horizontally neighbouring chroma samples
+     *
+     * @return {@link Integer}
+     */
+    public int getChromaPixelStride() {
+        return mChromaPixelStride;
+    }
+
+    /**
+     * Get the number of bytes a single buffer frame of this layout occupies
+     *
+     * @return {@link Integer}
+     */
+    public int getFrameSize() {
+        int chromaHeight = (mHeight + 1) >> 1;
+        int chromaEnd;
+        if (mChromaPixelStride == 2) {
+
+            // Interleaved planes share their rows, so the frame ends with the last row's pairs
+            int chromaWidth = (mWidth + 1) & ~1;
+            chromaEnd = Math.min(mUOffset, mVOffset) + mChromaRowStride * (chromaHeight - 1) + chromaWidth;
+        } else {
+            chromaEnd = Math.max(mUOffset, mVOffset) + mChromaRowStride * chromaHeight;
+        }
+        return Math.max(mYOffset + mYRowStride * mHeight, chromaEnd);
+    }
+
+    /**
+     * Pick the kernel specialised for this layout's chroma pixel stride
+     *
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvKernel}
+     */
+    YuvKernel createKernel() {
+        if (mChromaPixelStride == 2) {
+            return new SemiPlanarKernel(this);
+        } else if (mChromaPixelStride == 1) {
+            return new PlanarKernel(this);
+        }
+        return new StridedKernel(this);
+    }
+
+}
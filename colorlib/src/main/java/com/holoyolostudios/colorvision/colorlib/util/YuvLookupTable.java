@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.util;
+
+/**
+ * YuvLookupTable
+ * <p/>
+ * Table driven YUV to RGB decoder. Every Y, U and V value has its contribution to each channel
+ * precomputed, so decoding a pixel is only table lookups, adds and a clamp table.
+ * <p/>
+ * One table set exists per color standard and range, see {@link #getInstance(int, int)}.
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class YuvLookupTable {
+
+    // Color standards
+    public static final int STANDARD_BT601 = 0;
+    public static final int STANDARD_BT709 = 1;
+
+    // Ranges
+    public static final int RANGE_FULL = 0;
+    public static final int RANGE_LIMITED = 1;
+
+    // Constants
+    static final int SHIFT = 16;
+    private static final int CLAMP_OFFSET = 384;
+    private static final int CLAMP_SIZE = 1024;
+
+    // Clamp tables; CLAMP_R, CLAMP_G and CLAMP_B are already shifted into their position in a packed pixel
+    static final int[] CLAMP = new int[CLAMP_SIZE];
+    static final int[] CLAMP_R = new int[CLAMP_SIZE];
+    static final int[] CLAMP_G = new int[CLAMP_SIZE];
+    static final int[] CLAMP_B = new int[CLAMP_SIZE];
+
+    static {
+        for (int i = 0; i < CLAMP_SIZE; i++) {
+            int c = i - CLAMP_OFFSET;
+            c = (c < 0) ? 0 : c;
+            c = (c > 255) ? 255 : c;
+            CLAMP[i] = c;
+            CLAMP_R[i] = c << 16;
+            CLAMP_G[i] = c << 8;
+            CLAMP_B[i] = c;
+        }
+    }
+
+    // Instances
+    private static final YuvLookupTable[] sInstances = new YuvLookupTable[4];
+
+    // Members
+    private final int mStandard;
+    private final int mRange;
+    final int[] mY = new int[256];
+    final int[] mRv = new int[256];
+    final int[] mGu = new int[256];
+    final int[] mGv = new int[256];
+    final int[] mBu = new int[256];
+
+    /**
+     * Private constructor
+     *
+     * @param standard {@link Integer}
+     * @param range    {@link Integer}
+     */
+    private YuvLookupTable(int standard, int range) {
+        mStandard = standard;
+        mRange = range;
+
+        double kr = (standard == STANDARD_BT709) ? 0.2126d : 0.299d;
+        double kb = (standard == STANDARD_BT709) ? 0.0722d : 0.114d;
+        double kg = 1.0d - kr - kb;
+        double yScale = (range == RANGE_LIMITED) ? 255.0d / 219.0d : 1.0d;
+        double cScale = (range == RANGE_LIMITED) ? 255.0d / 224.0d : 1.0d;
+        int yOffset = (range == RANGE_LIMITED) ? 16 : 0;
+
+        double rv = 2.0d * (1.0d - kr) * cScale;
+        double bu = 2.0d * (1.0d - kb) * cScale;
+        double gu = -2.0d * kb * (1.0d - kb) / kg * cScale;
+        double gv = -2.0d * kr * (1.0d - kr) / kg * cScale;
+
+        // The clamp offset and the rounding half are folded into the Y table
+        int bias = (CLAMP_OFFSET << SHIFT) + (1 << (SHIFT - 1));
+        for (int i = 0; i < 256; i++) {
+            int c = i - 128;
+            mY[i] = fixed(yScale * (i - yOffset)) + bias;
+            mRv[i] = fixed(rv * c);
+            mGu[i] = fixed(gu * c);
+            mGv[i] = fixed(gv * c);
+            mBu[i] = fixed(bu * c);
+        }
+    }
+
+    /**
+     * Get the shared table set for a color standard and range
+     *
+     * @param standard {@link #STANDARD_BT601} or {@link #STANDARD_BT709}
+     * @param range    {@link #RANGE_FULL} or {@link #RANGE_LIMITED}
+     * @return {@link com.holoyolostudios.colorvision.colorlib.util.YuvLookupTable}
+     */
+    public static synchronized YuvLookupTable getInstance(int standard, int range) {
+        if (standard != STANDARD_BT601 && standard != STANDARD_BT709) {
+            throw new IllegalArgumentException("Unknown color standard: " + standard);
+        }
+        if (range != RANGE_FULL && range != RANGE_LIMITED) {
+            throw new IllegalArgumentException("Unknown range: " + range);
+        }
+        int index = (standard << 1) | range;
+        if (sInstances[index] == null) {
+            sInstances[index] = new YuvLookupTable(standard, range);
+        }
+        return sInstances[index];
+    }
+
+    /**
+     * Get the color standard of this table set
+     *
+     * @return {@link Integer}
+     */
+    public int getStandard() {
+        return mStandard;
+    }
+
+    /**
+     * Get the range of this table set
+     *
+     * @return {@link Integer}
+     */
+    public int getRange() {
+        return mRange;
+    }
+
+    /**
+     * Decode a single YUV sample to a packed ARGB pixel
+     *
+     * @param y {@link Integer} 0-255
+     * @param u {@link Integer} 0-255
+     * @param v {@link Integer} 0-255
+     * @return {@link Integer}
+     */
+    public int toRgb(int y, int u, int v) {
+        int yy = mY[y];
+        return 0xFF000000
+                | CLAMP_R[(yy + mRv[v]) >> SHIFT]
+                | CLAMP_G[(yy + mGu[u] + mGv[v]) >> SHIFT]
+                | CLAMP_B[(yy + mBu[u]) >> SHIFT];
+    }
+
+    /**
+     * Scale a coefficient to fixed point
+     *
+     * @param value {@link Double}
+     * @return {@link Integer}
+     */
+    private static int fixed(double value) {
+        return (int) Math.round(value * (1 << SHIFT));
+    }
+
+}
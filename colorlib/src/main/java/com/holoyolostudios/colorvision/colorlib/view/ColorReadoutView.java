@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.view;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.view.View;
+import com.holoyolostudios.colorvision.colorlib.R;
+import com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil;
+
+/**
+ * ColorReadoutView
+ * <p/>
+ * Draws the whole color readout, the R/G/B bars on the first row and the sample swatch, color
+ * name and hex code on the second, in a single {@link #onDraw(android.graphics.Canvas)}. Paints,
+ * metrics and the hex code buffer are set up once, so {@link #setColor(int, String)} invalidates
+ * one view and allocates nothing per frame.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ * @see {@link View}
+ */
+public class ColorReadoutView extends View {
+
+    // Constants
+    private static final int CHANNELS = 3;
+    private static final char[] CHANNEL_LABELS = {'R', 'G', 'B'};
+    private static final int HEX_LENGTH = 7;
+
+    // Paints
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTrackPaint = new Paint();
+    private final Paint[] mBarPaints = new Paint[CHANNELS];
+    private final Paint mSwatchPaint = new Paint();
+
+    // Metrics
+    private final float mBarHeight;
+    private final float mSwatchSize;
+    private final float mSpacing;
+    private final float mLabelWidth;
+    private final float mTextAscent;
+    private final float mTextDescent;
+
+    // Members
+    private final int[] mChannels = new int[CHANNELS];
+    private final char[] mHexBuffer = new char[HEX_LENGTH];
+    private boolean mHasColor = false;
+    private int mColor = 0;
+    private String mName = null;
+
+    /**
+     * Constructor
+     *
+     * @param context {@link Context}
+     */
+    public ColorReadoutView(Context context) {
+        this(context, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param context {@link Context}
+     * @param attrs   {@link AttributeSet}
+     */
+    public ColorReadoutView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param context  {@link Context}
+     * @param attrs    {@link AttributeSet}
+     * @param defStyle {@link Integer}
+     */
+    public ColorReadoutView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        Resources res = context.getResources();
+
+        mTextPaint.setColor(res.getColor(R.color.white));
+        mTextPaint.setTextSize(res.getDimension(R.dimen.color_info_text_size));
+        mTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        mTrackPaint.setColor(res.getColor(R.color.readout_track));
+        int[] barColors = {
+                res.getColor(R.color.readout_red),
+                res.getColor(R.color.readout_green),
+                res.getColor(R.color.readout_blue)
+        };
+        for (int i = 0; i < CHANNELS; i++) {
+            mBarPaints[i] = new Paint();
+            mBarPaints[i].setColor(barColors[i]);
+        }
+
+        mBarHeight = res.getDimension(R.dimen.color_readout_bar_height);
+        mSwatchSize = res.getDimension(R.dimen.color_sample_view_width);
+        mSpacing = res.getDimension(R.dimen.border_margin);
+        float labelWidth = 0;
+        for (int i = 0; i < CHANNELS; i++) {
+            labelWidth = Math.max(labelWidth, mTextPaint.measureText(CHANNEL_LABELS, i, 1));
+        }
+        mLabelWidth = labelWidth;
+        Paint.FontMetrics metrics = mTextPaint.getFontMetrics();
+        mTextAscent = -metrics.ascent;
+        mTextDescent = metrics.descent;
+
+        mHexBuffer[0] = '#';
+        setWillNotDraw(false);
+    }
+
+    /**
+     * Show a color and its name, invalidating only if either changed. Call on the main thread.
+     *
+     * @param color {@link Integer} packed ARGB
+     * @param name  {@link String} may be null
+     */
+    public void setColor(int color, String name) {
+        boolean changed = false;
+        if (!mHasColor || color != mColor) {
+            mChannels[0] = Color.red(color);
+            mChannels[1] = Color.green(color);
+            mChannels[2] = Color.blue(color);
+            ColorAnalyzerUtil.writeHexCode(color, mHexBuffer, 1);
+            mSwatchPaint.setColor(color | 0xFF000000);
+            mColor = color;
+            mHasColor = true;
+            changed = true;
+        }
+        if ((name == null) ? mName != null : !name.equals(mName)) {
+            mName = name;
+            changed = true;
+        }
+        if (changed) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Clear the readout
+     */
+    public void clear() {
+        if (mHasColor || mName != null) {
+            mHasColor = false;
+            mName = null;
+            invalidate();
+        }
+    }
+
+    /**
+     * Get the color currently shown
+     *
+     * @return {@link Integer} packed ARGB, or 0 if nothing is shown
+     */
+    public int getColor() {
+        return mHasColor ? mColor : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        float content = getBarRowHeight() + mSpacing + getInfoRowHeight();
+        int height = (int) Math.ceil(content) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(Math.max(height, getSuggestedMinimumHeight()),
+                heightMeasureSpec));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float left = getPaddingLeft();
+        float right = getWidth() - getPaddingRight();
+        float top = getPaddingTop();
+
+        // Bars, one cell per channel: label, then the track with the filled level on top
+        float barRow = getBarRowHeight();
+        float cellWidth = (right - left) / CHANNELS;
+        float labelBaseline = top + (barRow + mTextAscent - mTextDescent) / 2f;
+        float barTop = top + (barRow - mBarHeight) / 2f;
+        for (int i = 0; i < CHANNELS; i++) {
+            float x = left + i * cellWidth;
+            canvas.drawText(CHANNEL_LABELS, i, 1, x, labelBaseline, mTextPaint);
+            float barLeft = x + mLabelWidth + mSpacing / 2f;
+            float barRight = x + cellWidth - mSpacing;
+            if (barRight <= barLeft) {
+                continue;
+            }
+            canvas.drawRect(barLeft, barTop, barRight, barTop + mBarHeight, mTrackPaint);
+            if (mHasColor && mChannels[i] > 0) {
+                float level = barLeft + (barRight - barLeft) * mChannels[i] / 255f;
+                canvas.drawRect(barLeft, barTop, level, barTop + mBarHeight, mBarPaints[i]);
+            }
+        }
+
+        if (!mHasColor) {
+            return;
+        }
+
+        // Swatch, name clipped to the space left of the hex code, hex code right aligned
+        float infoTop = top + barRow + mSpacing;
+        float infoRow = getInfoRowHeight();
+        float infoBaseline = infoTop + (infoRow + mTextAscent - mTextDescent) / 2f;
+        float swatchTop = infoTop + (infoRow - mSwatchSize) / 2f;
+        canvas.drawRect(left, swatchTop, left + mSwatchSize, swatchTop + mSwatchSize,
+                mSwatchPaint);
+
+        float hexLeft = right - mTextPaint.measureText(mHexBuffer, 0, HEX_LENGTH);
+        canvas.drawText(mHexBuffer, 0, HEX_LENGTH, hexLeft, infoBaseline, mTextPaint);
+
+        if (mName != null) {
+            float nameLeft = left + mSwatchSize + mSpacing / 2f;
+            int save = canvas.save();
+            canvas.clipRect(nameLeft, infoTop, hexLeft - mSpacing, infoTop + infoRow);
+            canvas.drawText(mName, nameLeft, infoBaseline, mTextPaint);
+            canvas.restoreToCount(save);
+        }
+    }
+
+    /**
+     * Height of the bar row
+     *
+     * @return {@link Float}
+     */
+    private float getBarRowHeight() {
+        return Math.max(mTextAscent + mTextDescent, mBarHeight);
+    }
+
+    /**
+     * Height of the swatch, name and hex code row
+     *
+     * @return {@link Float}
+     */
+    private float getInfoRowHeight() {
+        return Math.max(mTextAscent + mTextDescent, mSwatchSize);
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 Martin Brabham
+ * Copyright 2014 Daniel Velazco
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ */
+package com.holoyolostudios.colorvision.colorlib.view;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * VsyncColorPublisher
+ * <p/>
+ * Hands analysis results, a color and its name, to the UI at most once per display frame.
+ * Results can be published from any thread; only the latest one is kept, in a single slot, and
+ * the listener runs on the main thread from a {@link android.view.Choreographer} frame callback,
+ * right before the frame is drawn. However many results arrive between two frames, the views are updated once.
+ * <p/>
+ * Before Jelly Bean there is no Choreographer, so results are posted to the main looper instead;
+ * they are still coalesced, just not aligned to vsync.
+ * <p/>
+ * Create it on the main thread.
+ * <p/>
+ *
+ * @author Martin Brabham
+ * @author Daniel Velazco
+ */
+public final class VsyncColorPublisher {
+
+    /**
+     * Listener
+     */
+    public interface Listener {
+
+        /**
+         * Show a result. Runs on the main thread, at most once per display frame. Implementations
+         * should skip views whose value has not changed.
+         *
+         * @param color {@link Integer} latest packed ARGB result
+         * @param name  {@link String} name published with it, may be null
+         */
+        public void onColorPublished(int color, String name);
+
+    }
+
+    // Members
+    private final Listener mListener;
+    private final AtomicBoolean mScheduled = new AtomicBoolean(false);
+    private final FrameCallback mFrameCallback;
+    private final Handler mHandler;
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+    private final Object mLock = new Object();
+    private int mLatestColor = 0;
+    private String mLatestName = null;
+
+    /**
+     * Constructor
+     *
+     * @param listener {@link com.holoyolostudios.colorvision.colorlib.view.VsyncColorPublisher.Listener}
+     */
+    public VsyncColorPublisher(Listener listener) {
+        mListener = listener;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new FrameCallback(this);
+            mHandler = null;
+        } else {
+            mFrameCallback = null;
+            mHandler = new Handler(Looper.getMainLooper());
+        }
+    }
+
+    /**
+     * Publish a result. Never allocates and only holds a short lock that keeps the color and name
+     * together; if a result is already waiting for the next frame it is replaced.
+     *
+     * @param color {@link Integer} packed ARGB
+     * @param name  {@link String} may be null
+     */
+    public void publish(int color, String name) {
+        synchronized (mLock) {
+            mLatestColor = color;
+            mLatestName = name;
+        }
+        if (mScheduled.compareAndSet(false, true)) {
+            if (mFrameCallback != null) {
+                mFrameCallback.post();
+            } else {
+                mHandler.post(mDispatchRunnable);
+            }
+        }
+    }
+
+    /**
+     * Drop a result that is waiting for the next frame
+     */
+    public void cancel() {
+        if (mFrameCallback != null) {
+            mFrameCallback.remove();
+        } else {
+            mHandler.removeCallbacks(mDispatchRunnable);
+        }
+        mScheduled.set(false);
+    }
+
+    /**
+     * Deliver the latest result to the listener
+     */
+    private void dispatch() {
+
+        // Clear the flag first, so a result published while the listener runs schedules a frame
+        mScheduled.set(false);
+        int color;
+        String name;
+        synchronized (mLock) {
+            color = mLatestColor;
+            name = mLatestName;
+        }
+        mListener.onColorPublished(color, name);
+    }
+
+    /**
+     * Choreographer glue, kept in its own class so older platforms never load it
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class FrameCallback implements Choreographer.FrameCallback {
+
+        // Members
+        private final VsyncColorPublisher mPublisher;
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        /**
+         * Constructor
+         *
+         * @param publisher {@link com.holoyolostudios.colorvision.colorlib.view.VsyncColorPublisher}
+         */
+        FrameCallback(VsyncColorPublisher publisher) {
+            mPublisher = publisher;
+        }
+
+        /**
+         * Run on the next display frame
+         */
+        void post() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        /**
+         * Cancel a pending run
+         */
+        void remove() {
+            mChoreographer.removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mPublisher.dispatch();
+        }
+
+    }
+
+}
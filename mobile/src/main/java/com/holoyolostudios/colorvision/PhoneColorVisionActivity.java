@@ -38,9 +38,12 @@ import android.view.MotionEvent;
 import android.view.TextureView;
 import android.view.View;
 import android.widget.TextView;
+import com.holoyolostudios.colorvision.colorlib.camera.CameraFrameSource;
 import com.holoyolostudios.colorvision.colorlib.colors.ColorNameCache;
-import com.holoyolostudios.colorvision.colorlib.util.ColorAnalyzerUtil;
-import com.holoyolostudios.colorvision.colorlib.view.ColorProgressBar;
+import com.holoyolostudios.colorvision.colorlib.engine.ColorDetectionEngine;
+import com.holoyolostudios.colorvision.colorlib.engine.ResultSink;
+import com.holoyolostudios.colorvision.colorlib.view.ColorReadoutView;
+import com.holoyolostudios.colorvision.colorlib.view.VsyncColorPublisher;
 import com.holoyolostudios.colorvision.view.FlashButton;
 
 import java.io.IOException;
@@ -56,10 +59,9 @@ import java.util.List;
  * @author Daniel Velazco
  * @see {@link Activity}
  * @see {@link TextureView.SurfaceTextureListener}
- * @see {@link Camera.PreviewCallback}
  */
 public class PhoneColorVisionActivity extends Activity
-        implements TextureView.SurfaceTextureListener, Camera.PreviewCallback, View.OnTouchListener {
+        implements TextureView.SurfaceTextureListener, View.OnTouchListener {
 
     // Constants
     private static final String TAG = "ColorVisionActivity";
@@ -89,10 +91,24 @@ public class PhoneColorVisionActivity extends Activity
     private ColorNameCache mColorNameCacheInstance = ColorNameCache.getInstance();
     private Camera mCamera = null;
     private Camera.Size mPreviewSize = null;
-    private int mExpectedBytes = -1;
-    private byte[] PREVIEW_BUFFER = null;
-    private int mHalfWidth = 0;
-    private int mHalfHeight = 0;
+    private ColorDetectionEngine mEngine = null;
+    private VsyncColorPublisher mPublisher = null;
+    private final VsyncColorPublisher.Listener mPublishListener = new VsyncColorPublisher.Listener() {
+        @Override
+        public void onColorPublished(int color, String name) {
+
+            // The readout skips the invalidate itself when neither color nor name changed
+            mReadoutView.setColor(color, name);
+        }
+    };
+    private final ResultSink mResultSink = new ResultSink() {
+        @Override
+        public void onResult(int color, String name) {
+
+            // Shown on the next display frame; newer results replace it until then
+            mPublisher.publish(color, name);
+        }
+    };
     private boolean mFlashTorchSupported = false;
     private boolean mFlashTorchActive = false;
     private AudioManager mAudioManager = null;
@@ -136,12 +152,7 @@ public class PhoneColorVisionActivity extends Activity
     // Views
     private TextureView mTextureView = null;
     private SurfaceTexture mSurfaceTexture = null;
-    private ColorProgressBar mRBar = null;
-    private ColorProgressBar mGBar = null;
-    private ColorProgressBar mBBar = null;
-    private TextView mColorNameLabel = null;
-    private TextView mColorHexLabel = null;
-    private View mSampleView = null;
+    private ColorReadoutView mReadoutView = null;
     private FlashButton mBtnFlashTorch = null;
     private View mViewPort = null;
     private TextView mWhiteBalanceLabel = null;
@@ -160,33 +171,32 @@ public class PhoneColorVisionActivity extends Activity
         mIntentFilter.addAction(ACTION_TAKE_PICTURE_FROM_SCREEN_OFF);
 
         setContentView(R.layout.activity_main);
+        mPublisher = new VsyncColorPublisher(mPublishListener);
+        mEngine = new ColorDetectionEngine(mColorNameCacheInstance, mResultSink);
         mAudioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
 
         // Setup the views
         mTextureView = (TextureView) findViewById(R.id.tv_camera_preview);
         mTextureView.setSurfaceTextureListener(this);
 
-        // Progress bars
-        mRBar = (ColorProgressBar) findViewById(R.id.cpb_r);
-        mRBar.setLabelText("R");
-        mGBar = (ColorProgressBar) findViewById(R.id.cpb_g);
-        mGBar.setLabelText("G");
-        mBBar = (ColorProgressBar) findViewById(R.id.cpb_b);
-        mBBar.setLabelText("B");
-
-        // Sample preview of color
-        mSampleView = findViewById(R.id.v_sample);
+        // Color readout
+        mReadoutView = (ColorReadoutView) findViewById(R.id.layout_widget_bar);
 
         // Reference the input controller view
         mInputController = findViewById(R.id.v_input_control);
         mInputController.setOnTouchListener(this);
 
-        // Viewport
+        // Viewport; the engine samples an area of its size, kept up to date across relayouts
         mViewPort = findViewById(R.id.view_color_viewport);
+        mViewPort.addOnLayoutChangeListener(new View.OnLayoutChangeListener() {
+            @Override
+            public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop,
+                                       int oldRight, int oldBottom) {
+                mEngine.setSampleSize(right - left, bottom - top);
+            }
+        });
 
         // Labels
-        mColorNameLabel = (TextView) findViewById(R.id.tv_color_name);
-        mColorHexLabel = (TextView) findViewById(R.id.tv_color_hex);
         mWhiteBalanceLabel = (TextView) findViewById(R.id.tv_wb_label);
 
         // Flash torch button
@@ -251,14 +261,6 @@ public class PhoneColorVisionActivity extends Activity
         super.onDestroy();
     }
 
-    private String getColorName(int r, int g, int b) {
-        String colorName = null;
-        if (mColorNameCacheInstance != null && mColorNameCacheInstance.isInitialized()) {
-            colorName = mColorNameCacheInstance.getColorName(r, g, b);
-        }
-        return colorName;
-    }
-
     private Camera.Parameters setCameraParametersForPreview(Camera.Parameters params) {
         params.setPreviewFormat(ImageFormat.NV21);
 
@@ -341,18 +343,11 @@ public class PhoneColorVisionActivity extends Activity
                 mPreviewSize = p.getPreviewSize();
                 Log.d(TAG, "mPreviewSize.width: " + mPreviewSize.width);
                 Log.d(TAG, "mPreviewSize.height: " + mPreviewSize.height);
-                mExpectedBytes = mPreviewSize.width * mPreviewSize.height * 3 / 2;
-                ColorAnalyzerUtil.FRAME_WIDTH = mPreviewSize.width;
-                ColorAnalyzerUtil.FRAME_HEIGHT = mPreviewSize.height;
-                mHalfWidth = mPreviewSize.width / 2;
-                mHalfHeight = mPreviewSize.height / 2;
                 mCamera.setParameters(p);
-                mCamera.setPreviewCallbackWithBuffer(this);
-                PREVIEW_BUFFER = new byte[mExpectedBytes];
-                mCamera.addCallbackBuffer(PREVIEW_BUFFER);
                 setWhiteBalanceLabelText();
-                mCamera.setPreviewTexture(surface);
-                mCamera.startPreview();
+
+                // The engine keeps its buffers across restarts while the preview size stays the same
+                mEngine.start(new CameraFrameSource(mCamera, surface));
                 mIsPreviewing = true;
             }
         } catch (IOException e) {
@@ -362,8 +357,15 @@ public class PhoneColorVisionActivity extends Activity
 
     private void stopPreview() {
         if (mCamera != null) {
-            mCamera.stopPreview();
-            mCamera.setPreviewCallbackWithBuffer(null);
+
+            // Waits for the frame in progress, so no buffer goes back to a released camera
+            mEngine.stop();
+            mPublisher.cancel();
+            Log.d(TAG, "Frames delivered: " + mEngine.getDeliveredCount()
+                    + ", analysed: " + mEngine.getAnalyzedCount()
+                    + ", superseded: " + mEngine.getSupersededCount()
+                    + ", dropped: " + mEngine.getDroppedCount()
+                    + ", buffer starvation: " + mEngine.getStarvedCount());
             mCamera.release();
             mCamera = null;
             mIsPreviewing = false;
@@ -411,24 +413,6 @@ public class PhoneColorVisionActivity extends Activity
         }
     }
 
-    @Override
-    public void onPreviewFrame(byte[] data, Camera camera) {
-        final ColorAnalyzerUtil.RGBColor color = ColorAnalyzerUtil.getAverageColor(data,
-                mHalfWidth - (mViewPort.getWidth() / 2), mHalfHeight - (mViewPort.getHeight() / 2), mHalfWidth + (mViewPort.getWidth() / 2), mHalfHeight + (mViewPort.getHeight() / 2));
-        sHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                mRBar.setColorProgress(color.getRed());
-                mGBar.setColorProgress(color.getGreen());
-                mBBar.setColorProgress(color.getBlue());
-                mColorHexLabel.setText("#" + color.getHexCode().substring(2).toUpperCase());
-                mColorNameLabel.setText(getColorName(color.getRed(), color.getGreen(), color.getBlue()));
-                mSampleView.setBackgroundColor(color.getPixel());
-            }
-        });
-        camera.addCallbackBuffer(PREVIEW_BUFFER);
-    }
-
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {